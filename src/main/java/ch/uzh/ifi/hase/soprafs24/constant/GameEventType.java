@@ -0,0 +1,5 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+public enum GameEventType {
+    BOARD_CREATED, HINT, GUESS, TURN_END, TIMER_EXPIRED
+}
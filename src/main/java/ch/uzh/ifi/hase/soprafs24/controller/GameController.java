@@ -1,10 +1,16 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -18,9 +24,9 @@ import org.springframework.web.server.ResponseStatusException;
 import ch.uzh.ifi.hase.soprafs24.annotation.AuthorizationRequired;
 import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
 import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
-import ch.uzh.ifi.hase.soprafs24.entity.Card;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameStartDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GiveHintDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.SelectWordDTO;
@@ -82,18 +88,37 @@ public class GameController {
     @PostMapping("/game/{id}/start")
     @ResponseStatus(HttpStatus.OK)
     @AuthorizationRequired
-    public Game startGame(@PathVariable Long id,
+    public CompletableFuture<GameGetDTO> startGame(@PathVariable Long id, @RequestHeader(value = "Authorization", required = false) String authHeader,
                       @RequestBody GameStartDTO gameStartDTO) {
         TeamColor startingTeam = gameStartDTO.getStartingTeam();
         GameMode gameMode = gameStartDTO.getGameMode();
-        return gameService.startOrGetGame(id, startingTeam, gameMode);
+        // the request thread is released while the words are fetched, the board is sent in the view of the caller's role
+        return gameService.startOrGetGameViewAsync(id, startingTeam, gameMode, isSpymaster(authHeader, id));
     }
 
+    // Spymasters get all colors, everyone else only the colors of guessed cards
     @GetMapping("/game/{id}/board")
     @ResponseStatus(HttpStatus.OK)
     @AuthorizationRequired
-    public List<Card> getBoard(@PathVariable Long id) {
-        return gameService.getBoard(id);
+    public ResponseEntity<byte[]> getBoard(@PathVariable Long id, @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        byte[] board = gameService.getBoardJson(id, isSpymaster(authHeader, id));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(board);
+    }
+
+    @GetMapping("/game/{id}/board/snapshot")
+    @ResponseStatus(HttpStatus.OK)
+    @AuthorizationRequired
+    public ResponseEntity<byte[]> getBoardSnapshot(@PathVariable Long id, @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        byte[] snapshot = gameService.getBoardSnapshotJson(id, isSpymaster(authHeader, id));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(snapshot);
+    }
+
+    // Clients subscribe to /app/game/{id}/board once to receive the current board directly,
+    // the Authorization header of the SUBSCRIBE frame decides which view is sent
+    @SubscribeMapping("/game/{id}/board")
+    public String subscribeBoard(@DestinationVariable Long id, SimpMessageHeaderAccessor headerAccessor) {
+        boolean spymaster = isSpymaster(headerAccessor.getFirstNativeHeader("Authorization"), id);
+        return new String(gameService.getBoardSnapshotJson(id, spymaster), StandardCharsets.UTF_8);
     }
 
     @PutMapping("/game/{id}/guess")
@@ -118,15 +143,8 @@ public class GameController {
             guessDTO.setTeamColor(team.name());
             webSocketService.sendMessage("/topic/game/" + id + "/guess", guessDTO);
         }
-        // Send the updated board to all clients
-        List<Card> updatedBoard = gameService.getBoard(id);
-        int guessesLeft = gameService.getRemainingGuesses(id);
-        
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("updatedBoard", updatedBoard);
-        payload.put("guessesLeft", guessesLeft);
-
-        webSocketService.sendMessage("/topic/game/" + id + "/board", payload);
+        // Send the changed cards to all clients
+        gameService.publishBoardUpdate(id);
     }
 
     @PutMapping("/game/{id}/selectWord")
@@ -145,19 +163,17 @@ public class GameController {
         // Validate if the user is a field operative for the selected team
         gameService.checkIfUserIsFieldOperative(user.getId(), teamColor);
 
-        // Call the service to process the word selection
+        // Call the service to process the word selection, the service sends the changed selection to all players
         gameService.selectWord(id, selectWordDTO);
+    }
 
-        // Send the updated board to all players via WebSocket
-        List<Card> updatedBoard = gameService.getBoard(id);
-        int guessesLeft = gameService.getRemainingGuesses(id);
-
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("updatedBoard", updatedBoard); // Send the updated board
-        payload.put("guessesLeft", guessesLeft);
-
-        // Send the selection to the WebSocket topic
-        webSocketService.sendMessage("/topic/game/" + id + "/board", payload);
+    // only spymasters of the lobby that plays the game see the colors
+    private boolean isSpymaster(String authHeader, Long gameId) {
+        if (authHeader == null) {
+            return false;
+        }
+        String token = userService.extractToken(authHeader);
+        return gameService.isSpymaster(userService.validateToken(token), gameId);
     }
 
     
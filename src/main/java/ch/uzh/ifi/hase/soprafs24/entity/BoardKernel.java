@@ -0,0 +1,157 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+
+/**
+ * Compact in-memory representation of a board. Colors, guessed and selected state are
+ * kept as bitmasks (bit i = card i), so counting, clearing and win checks are single bit operations.
+ * The card list of a {@link Game} is only materialized from this kernel for serialization.
+ */
+public final class BoardKernel {
+
+    private static final int MAX_CARDS = Integer.SIZE;
+
+    private final int size;
+    private final Map<String, Integer> wordIndex;
+    private final int[] colorMasks = new int[CardColor.values().length];
+    private int guessedMask;
+    private int selectedMask;
+    // state of the last write, used to find the cards that changed since
+    private int persistedGuessedMask;
+    // state of the last board message sent to the clients
+    private int publishedGuessedMask;
+    private int publishedSelectedMask;
+
+    private BoardKernel(int size) {
+        this.size = size;
+        this.wordIndex = new HashMap<>(size * 2);
+    }
+
+    public static BoardKernel of(List<Card> board) {
+        if (board == null) {
+            return new BoardKernel(0);
+        }
+        if (board.size() > MAX_CARDS) {
+            throw new IllegalArgumentException("Board cannot have more than " + MAX_CARDS + " cards");
+        }
+        BoardKernel kernel = new BoardKernel(board.size());
+        for (int i = 0; i < board.size(); i++) {
+            Card card = board.get(i);
+            int bit = 1 << i;
+            kernel.wordIndex.putIfAbsent(normalize(card.getWord()), i);
+            if (card.getColor() != null) {
+                kernel.colorMasks[card.getColor().ordinal()] |= bit;
+            }
+            if (card.isGuessed()) {
+                kernel.guessedMask |= bit;
+            }
+            if (card.isSelected()) {
+                kernel.selectedMask |= bit;
+            }
+        }
+        kernel.markPersisted();
+        kernel.markPublished();
+        return kernel;
+    }
+
+    public static String normalize(String word) {
+        return word == null ? "" : word.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return index of the word on the board or -1 if it is not on the board
+     */
+    public int indexOf(String word) {
+        Integer index = wordIndex.get(normalize(word));
+        return index == null ? -1 : index;
+    }
+
+    public CardColor colorAt(int index) {
+        int bit = 1 << index;
+        for (CardColor color : CardColor.values()) {
+            if ((colorMasks[color.ordinal()] & bit) != 0) {
+                return color;
+            }
+        }
+        return null;
+    }
+
+    public boolean isGuessed(int index) {
+        return (guessedMask & (1 << index)) != 0;
+    }
+
+    public void markGuessed(int index) {
+        guessedMask |= 1 << index;
+    }
+
+    public boolean isSelected(int index) {
+        return (selectedMask & (1 << index)) != 0;
+    }
+
+    public void setSelected(int index, boolean selected) {
+        if (selected) {
+            selectedMask |= 1 << index;
+        } else {
+            selectedMask &= ~(1 << index);
+        }
+    }
+
+    public void clearSelection() {
+        selectedMask = 0;
+    }
+
+    /**
+     * @return number of cards of the given color that have not been guessed yet
+     */
+    public int remaining(CardColor color) {
+        return Integer.bitCount(colorMasks[color.ordinal()] & ~guessedMask);
+    }
+
+    public int getGuessedMask() {
+        return guessedMask;
+    }
+
+    public int getSelectedMask() {
+        return selectedMask;
+    }
+
+    public int getChangedGuessedMask() {
+        return guessedMask ^ persistedGuessedMask;
+    }
+
+    public void markPersisted() {
+        persistedGuessedMask = guessedMask;
+    }
+
+    /**
+     * @return bitmask of the cards whose guessed or selected flag changed since the last board message
+     */
+    public int getUnpublishedMask() {
+        return (guessedMask ^ publishedGuessedMask) | (selectedMask ^ publishedSelectedMask);
+    }
+
+    public void markPublished() {
+        publishedGuessedMask = guessedMask;
+        publishedSelectedMask = selectedMask;
+    }
+
+    /**
+     * Copies guessed and selected state into the given cards, which must be the cards this kernel was built from.
+     */
+    public void writeTo(List<Card> board) {
+        for (int i = 0; i < size; i++) {
+            Card card = board.get(i);
+            card.setGuessed(isGuessed(i));
+            card.setSelected(isSelected(i));
+        }
+    }
+}
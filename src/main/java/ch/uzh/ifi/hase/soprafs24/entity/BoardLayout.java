@@ -0,0 +1,62 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+/**
+ * Derives the cards of a board from the drawn words, the starting team and a 64-bit seed. The same
+ * inputs always give the same board on every JVM, so a game only stores the seed and the words.
+ */
+public final class BoardLayout {
+
+    private static final int BOARD_SIZE = 25;
+    private static final int STARTING_TEAM_CARDS = 9;
+    private static final int OTHER_TEAM_CARDS = 8;
+    private static final int NEUTRAL_CARDS = 7;
+
+    private BoardLayout() {}
+
+    /**
+     * Shuffles a copy of the words, assigns the colors to the first 25 (9 to the starting team, 8 to the
+     * other team, 7 neutral, 1 black) and shuffles the cards. The given list is not changed.
+     */
+    public static List<Card> generate(List<String> words, TeamColor startingTeam, long seed) {
+        if (words.size() < BOARD_SIZE) {
+            throw new IllegalArgumentException("A board needs " + BOARD_SIZE + " words, got " + words.size());
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> shuffled = new ArrayList<>(words);
+        shuffle(shuffled, random);
+
+        CardColor startingColor = startingTeam == TeamColor.RED ? CardColor.RED : CardColor.BLUE;
+        CardColor otherColor = startingColor == CardColor.RED ? CardColor.BLUE : CardColor.RED;
+        List<Card> board = new ArrayList<>(BOARD_SIZE);
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            CardColor color;
+            if (i < STARTING_TEAM_CARDS) {
+                color = startingColor;
+            } else if (i < STARTING_TEAM_CARDS + OTHER_TEAM_CARDS) {
+                color = otherColor;
+            } else if (i < STARTING_TEAM_CARDS + OTHER_TEAM_CARDS + NEUTRAL_CARDS) {
+                color = CardColor.NEUTRAL;
+            } else {
+                color = CardColor.BLACK;
+            }
+            board.add(new Card(shuffled.get(i), color));
+        }
+        shuffle(board, random);
+        return board;
+    }
+
+    // Fisher-Yates, Collections.shuffle only takes a java.util.Random
+    private static <T> void shuffle(List<T> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 
+import org.springframework.data.annotation.Transient;
+
 import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
 
 public class Card {
     private String word;
     private CardColor color;
     private boolean guessed = false; 
+    @Transient // temporary selection of the operatives, only kept in memory
     private boolean selected = false;
 
     public Card() {}
@@ -6,6 +6,13 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 public abstract class DatabaseEntity implements Serializable {
+
+    /**
+     * Time the TTL index waits after {@code expiresAt} before it removes a document. Within that
+     * window expired documents are cleaned up by the sweeper, which also notifies the clients.
+     */
+    public static final int EXPIRY_GRACE_SECONDS = 60 * 60;
+
     @Id
     @Indexed
     private Long id;
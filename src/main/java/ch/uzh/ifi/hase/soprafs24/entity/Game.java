@@ -1,27 +1,92 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
 import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
 import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
 
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Document(collection = "GAME")
 public class Game extends DatabaseEntity {
 
+    // the id is the id of the lobby and reused by every game the lobby plays, the instance id is unique
+    // per game and keys its move log
+    private String instanceId;
+    // drawn words, in the order they were drawn
     private List<String> words; 
+    // the cards of a seeded board are derived from the words, the starting team and the seed, only the
+    // guessed cards are stored (bit i = card i)
+    private Long boardSeed;
+    private int guessedMask;
+    // only stored for boards without a seed
     private List<Card> board; 
     private TeamColor startingTeam; 
     private TeamColor teamTurn; 
     private String status;
     private TeamColor winningTeam;
     private GameMode gameMode;
+    private GameLanguage language;
     private String currentHint;
     private Integer wordCount;
     private Integer guessedInHint = 0;
     private Integer turnDuration = 60;
+    // incremented by every field-level update, used to detect stale writes
+    private long version;
+    // sequence number of the last event in the move log that is reflected in this document
+    private long eventSeq;
+    @Indexed(expireAfterSeconds = EXPIRY_GRACE_SECONDS)
+    private Instant expiresAt;
+    // end of the current turn in timed games
+    private Instant turnDeadline;
+    // sequence number of the last board message, stored with the next write of the game so the numbers keep
+    // growing across reloads
+    private long boardSeq;
+    // guesses left sent with the last board message
+    @Transient
+    private Integer publishedGuessesLeft;
+
+    @Transient
+    private List<Card> derivedBoard;
+
+    @Transient
+    private BoardKernel kernel;
+
+    @Transient
+    private HintIndex hintIndex;
+
+    // fields changed since the last write, with their new values
+    @Transient
+    private final Map<String, Object> changes = new LinkedHashMap<>();
+
+    // counters incremented since the last write, with the amount
+    @Transient
+    private final Map<String, Integer> increments = new LinkedHashMap<>();
+
+    // turn and status of the stored document while they have pending changes, the write is guarded by them
+    @Transient
+    private TeamColor storedTeamTurn;
+    @Transient
+    private String storedStatus;
+
+    @JsonIgnore
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+        changes.put("instanceId", instanceId);
+    }
 
     public GameMode getGameMode(){
         return gameMode;
@@ -29,6 +94,17 @@ public class Game extends DatabaseEntity {
 
     public void setGameMode(GameMode gameMode){
         this.gameMode = gameMode;
+        changes.put("gameMode", gameMode);
+    }
+
+    public GameLanguage getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(GameLanguage language) {
+        this.language = language;
+        this.hintIndex = null;
+        changes.put("language", language);
     }
 
     public TeamColor getWinningTeam(){
@@ -37,6 +113,7 @@ public class Game extends DatabaseEntity {
 
     public void setWinningTeam(TeamColor winningTeam){
         this.winningTeam = winningTeam;
+        changes.put("winningTeam", winningTeam);
     }
 
     public String getStatus(){
@@ -44,7 +121,11 @@ public class Game extends DatabaseEntity {
     }
 
     public void setStatus(String status){
+        if (!changes.containsKey("status")) {
+            storedStatus = this.status;
+        }
         this.status = status;
+        changes.put("status", status);
     }
 
     public TeamColor getTeamTurn(){
@@ -52,7 +133,11 @@ public class Game extends DatabaseEntity {
     }
 
     public void setTeamTurn(TeamColor teamTurn){
+        if (!changes.containsKey("teamTurn")) {
+            storedTeamTurn = this.teamTurn;
+        }
         this.teamTurn = teamTurn;
+        changes.put("teamTurn", teamTurn);
     }
 
     public List<String> getWords(){
@@ -61,6 +146,7 @@ public class Game extends DatabaseEntity {
 
     public void setWords(List<String> words){
         this.words = words;
+        changes.put("words", words);
     }
 
     public TeamColor getStartingTeam(){
@@ -69,14 +155,104 @@ public class Game extends DatabaseEntity {
 
     public void setStartingTeam(TeamColor startingColor){
         this.startingTeam = startingColor; 
+        changes.put("startingTeam", startingColor);
     }
 
+    /**
+     * Returns the card list, materialized from the board kernel if the kernel has been used.
+     */
     public List<Card> getBoard(){
-        return board;
+        List<Card> cards = cards();
+        if (kernel != null && cards != null) {
+            kernel.writeTo(cards);
+        }
+        return cards;
     }
 
+    /**
+     * Sets a board that is stored card by card, e.g. one that was not created from a seed.
+     */
     public void setBoard(List<Card> board){
+        if (boardSeed != null) {
+            boardSeed = null;
+            changes.put("boardSeed", null);
+        }
         this.board = board; 
+        this.derivedBoard = null;
+        this.kernel = board == null ? null : BoardKernel.of(board);
+        this.hintIndex = null;
+        changes.put("board", board);
+    }
+
+    @JsonIgnore
+    public Long getBoardSeed() {
+        return boardSeed;
+    }
+
+    /**
+     * Derives the board from the words and the starting team, which must be set, with no card guessed.
+     * Throws an IllegalArgumentException if there are too few words.
+     */
+    public void setBoardSeed(long boardSeed) {
+        if (board != null) {
+            board = null;
+            changes.put("board", null);
+        }
+        this.boardSeed = boardSeed;
+        this.guessedMask = 0;
+        this.derivedBoard = BoardLayout.generate(words, startingTeam, boardSeed);
+        this.kernel = null;
+        this.hintIndex = null;
+        changes.put("boardSeed", boardSeed);
+        changes.put("guessedMask", 0);
+    }
+
+    @JsonIgnore
+    public int getGuessedMask() {
+        return kernel != null ? kernel.getGuessedMask() : guessedMask;
+    }
+
+    /**
+     * Marks the cards of a seeded board as guessed, e.g. when restoring a snapshot.
+     */
+    public void setGuessedMask(int guessedMask) {
+        this.guessedMask = guessedMask;
+        this.derivedBoard = null;
+        this.kernel = null;
+        changes.put("guessedMask", guessedMask);
+    }
+
+    @JsonIgnore
+    public BoardKernel getKernel() {
+        if (kernel == null) {
+            kernel = BoardKernel.of(cards()); //game was loaded from the database
+        }
+        return kernel;
+    }
+
+    /**
+     * Folded and stemmed words of the board, built on first use and kept while the game is in memory.
+     */
+    @JsonIgnore
+    public HintIndex getHintIndex() {
+        if (hintIndex == null) {
+            List<Card> cards = cards();
+            hintIndex = HintIndex.of(cards == null ? List.of() : cards.stream().map(Card::getWord).collect(Collectors.toList()), language);
+        }
+        return hintIndex;
+    }
+
+    private List<Card> cards() {
+        if (boardSeed == null) {
+            return board;
+        }
+        if (derivedBoard == null) {
+            derivedBoard = BoardLayout.generate(words, startingTeam, boardSeed);
+            for (int i = 0; i < derivedBoard.size(); i++) {
+                derivedBoard.get(i).setGuessed((guessedMask & (1 << i)) != 0);
+            }
+        }
+        return derivedBoard;
     }
 
     public Map.Entry<String, Integer> getCurrentHint() {
@@ -90,13 +266,24 @@ public class Game extends DatabaseEntity {
         this.currentHint = currentHint;
         this.wordCount = wordCount;
         this.guessedInHint = 0;
+        changes.put("currentHint", currentHint);
+        changes.put("wordCount", wordCount);
+        changes.put("guessedInHint", 0);
+        increments.remove("guessedInHint");
     }
 
     public void addGuessedInHint() {
         if (this.guessedInHint == null) {
             this.guessedInHint = 0;
+            changes.put("guessedInHint", 0);
         }
         this.guessedInHint++;
+        if (changes.containsKey("guessedInHint")) {
+            // reset since the last write, the new value is written as a whole
+            changes.put("guessedInHint", this.guessedInHint);
+        } else {
+            increments.merge("guessedInHint", 1, Integer::sum);
+        }
     }
 
     public Integer getGuessedInHint() {
@@ -105,6 +292,8 @@ public class Game extends DatabaseEntity {
 
     public void setGuessedInHint(Integer guessedInHint) {
         this.guessedInHint = guessedInHint;
+        changes.put("guessedInHint", guessedInHint);
+        increments.remove("guessedInHint");
     }
 
     public Integer getTurnDuration() {
@@ -113,5 +302,133 @@ public class Game extends DatabaseEntity {
 
     public void setTurnDuration(Integer turnDuration) {
         this.turnDuration = turnDuration;
+        changes.put("turnDuration", turnDuration);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getEventSeq() {
+        return eventSeq;
+    }
+
+    public void setEventSeq(long eventSeq) {
+        this.eventSeq = eventSeq;
+        changes.put("eventSeq", eventSeq);
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+        changes.put("expiresAt", expiresAt);
+    }
+
+    public Instant getTurnDeadline() {
+        return turnDeadline;
+    }
+
+    public void setTurnDeadline(Instant turnDeadline) {
+        this.turnDeadline = turnDeadline;
+        changes.put("turnDeadline", turnDeadline);
+    }
+
+    public long getBoardSeq() {
+        return boardSeq;
+    }
+
+    public long nextBoardSeq() {
+        boardSeq++;
+        changes.put("boardSeq", boardSeq);
+        return boardSeq;
+    }
+
+    /**
+     * Continues the board messages after the given sequence number, e.g. the last message sent before the
+     * game was evicted and its changes were not written.
+     */
+    public void continueBoardSeq(long sent) {
+        if (sent > boardSeq) {
+            boardSeq = sent;
+            changes.put("boardSeq", boardSeq);
+        }
+    }
+
+    @JsonIgnore
+    public Integer getPublishedGuessesLeft() {
+        return publishedGuessesLeft;
+    }
+
+    public void setPublishedGuessesLeft(Integer publishedGuessesLeft) {
+        this.publishedGuessesLeft = publishedGuessesLeft;
+    }
+
+    /**
+     * Returns the fields changed since the last write, keyed by their document path.
+     * Guessed flags are reported as one mask for a seeded board, otherwise per card (e.g. {@code board.3.guessed})
+     * unless the whole board was replaced. Selections are temporary and never written.
+     */
+    @JsonIgnore
+    public Map<String, Object> getPendingChanges() {
+        Map<String, Object> pending = new LinkedHashMap<>(changes);
+        if (boardSeed != null) {
+            if (kernel != null && kernel.getChangedGuessedMask() != 0) {
+                guessedMask = kernel.getGuessedMask();
+                pending.put("guessedMask", guessedMask);
+            }
+        } else if (pending.containsKey("board")) {
+            pending.put("board", getBoard());
+        } else if (kernel != null) {
+            int guessed = kernel.getChangedGuessedMask();
+            for (int i = 0; i < kernel.size(); i++) {
+                if ((guessed & (1 << i)) != 0) {
+                    pending.put("board." + i + ".guessed", kernel.isGuessed(i));
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the counters incremented since the last write, with the amount. A counter that was also set
+     * is only reported by {@link #getPendingChanges()}.
+     */
+    @JsonIgnore
+    public Map<String, Integer> getPendingIncrements() {
+        return new LinkedHashMap<>(increments);
+    }
+
+    /**
+     * Turn of the stored document, i.e. before the pending changes.
+     */
+    @JsonIgnore
+    public TeamColor getStoredTeamTurn() {
+        return changes.containsKey("teamTurn") ? storedTeamTurn : teamTurn;
+    }
+
+    /**
+     * Status of the stored document, i.e. before the pending changes.
+     */
+    @JsonIgnore
+    public String getStoredStatus() {
+        return changes.containsKey("status") ? storedStatus : status;
+    }
+
+    /**
+     * Called after the pending changes have been written.
+     */
+    public void clearPendingChanges() {
+        changes.clear();
+        increments.clear();
+        if (kernel != null) {
+            kernel.markPersisted();
+        }
     }
 }
@@ -0,0 +1,228 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+/**
+ * Compact record of a finished game. Instead of the cards, the archive keeps the drawn words and the
+ * random seed the board was shuffled with, one byte per card (color and guessed flag) and the moves
+ * in a binary encoding. Word selections are not archived.
+ */
+@Document(collection = "GAME_ARCHIVE")
+public class GameArchive {
+
+    private static final String WORD_SEPARATOR = "\n";
+    private static final int GUESSED_FLAG = 0x4;
+    private static final int NO_TEAM = 0x3;
+
+    // instance id of the game, a lobby archives one game per round it plays
+    @Id
+    private String id;
+    // id of the game, which is the id of the lobby
+    @Indexed
+    private Long gameId;
+    @Indexed
+    private Instant finishedAt;
+    private GameMode gameMode;
+    private TeamColor startingTeam;
+    private TeamColor winningTeam;
+    // seed of the board layout, see BoardLayout. With a seed the words are in the order they were drawn,
+    // without one (games whose cards were stored one by one) they are in board order.
+    private Long boardSeed;
+    private String words;
+    // per card in board order: color ordinal, GUESSED_FLAG
+    private byte[] cards;
+    private byte[] moves;
+
+    public GameArchive() {}
+
+    /**
+     * Archives the finished game with the events of its move log.
+     */
+    public static GameArchive of(Game game, List<GameEvent> events) {
+        GameArchive archive = new GameArchive();
+        archive.id = game.getInstanceId() != null ? game.getInstanceId() : UUID.randomUUID().toString();
+        archive.gameId = game.getId();
+        archive.finishedAt = Instant.now();
+        archive.gameMode = game.getGameMode();
+        archive.startingTeam = game.getStartingTeam();
+        archive.winningTeam = game.getWinningTeam();
+
+        List<Card> board = game.getBoard();
+        if (game.getBoardSeed() != null) {
+            archive.boardSeed = game.getBoardSeed();
+            archive.words = String.join(WORD_SEPARATOR, game.getWords());
+        } else {
+            archive.words = String.join(WORD_SEPARATOR, board.stream().map(Card::getWord).toList());
+        }
+
+        archive.cards = new byte[board.size()];
+        for (int i = 0; i < board.size(); i++) {
+            Card card = board.get(i);
+            archive.cards[i] = (byte) (card.getColor().ordinal() | (card.isGuessed() ? GUESSED_FLAG : 0));
+        }
+        archive.moves = encodeMoves(events);
+        return archive;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public TeamColor getStartingTeam() {
+        return startingTeam;
+    }
+
+    public TeamColor getWinningTeam() {
+        return winningTeam;
+    }
+
+    public Long getBoardSeed() {
+        return boardSeed;
+    }
+
+    public List<String> getWords() {
+        return new ArrayList<>(Arrays.asList(words.split(WORD_SEPARATOR, -1)));
+    }
+
+    public int getCardCount() {
+        return cards.length;
+    }
+
+    public CardColor colorAt(int index) {
+        return CardColor.values()[cards[index] & 0x3];
+    }
+
+    public boolean isGuessed(int index) {
+        return (cards[index] & GUESSED_FLAG) != 0;
+    }
+
+    public List<Move> getMoves() {
+        List<Move> result = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(moves))) {
+            while (in.available() > 0) {
+                GameEventType type = GameEventType.values()[in.readByte()];
+                int teams = in.readByte();
+                Move move = new Move(type, team(teams & 0x3), team(teams >> 2));
+                if (type == GameEventType.GUESS) {
+                    move.index = (int) in.readByte();
+                } else if (type == GameEventType.HINT) {
+                    move.wordCount = in.readUnsignedByte();
+                    move.hint = in.readUTF();
+                }
+                result.add(move);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Per move: type and teams (acting team, team whose turn it is afterwards) in one byte each,
+     * followed by the card index of a guess or the word count and text of a hint.
+     */
+    private static byte[] encodeMoves(List<GameEvent> events) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (GameEvent event : events) {
+                GameEventType type = event.getType();
+                if (type == GameEventType.BOARD_CREATED) {
+                    continue;
+                }
+                out.writeByte(type.ordinal());
+                out.writeByte(ordinal(event.getTeam()) | ordinal(event.getNextTeam()) << 2);
+                if (type == GameEventType.GUESS) {
+                    out.writeByte(event.getIndex());
+                } else if (type == GameEventType.HINT) {
+                    out.writeByte(event.getWordCount() != null ? event.getWordCount() : 0);
+                    out.writeUTF(event.getHint() != null ? event.getHint() : "");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int ordinal(TeamColor team) {
+        return team != null ? team.ordinal() : NO_TEAM;
+    }
+
+    private static TeamColor team(int ordinal) {
+        return ordinal != NO_TEAM ? TeamColor.values()[ordinal] : null;
+    }
+
+    /**
+     * One decoded move of an archived game.
+     */
+    public static class Move {
+
+        private final GameEventType type;
+        private final TeamColor team;
+        private final TeamColor nextTeam;
+        private Integer index;
+        private String hint;
+        private Integer wordCount;
+
+        private Move(GameEventType type, TeamColor team, TeamColor nextTeam) {
+            this.type = type;
+            this.team = team;
+            this.nextTeam = nextTeam;
+        }
+
+        public GameEventType getType() {
+            return type;
+        }
+
+        public TeamColor getTeam() {
+            return team;
+        }
+
+        public TeamColor getNextTeam() {
+            return nextTeam;
+        }
+
+        public Integer getIndex() {
+            return index;
+        }
+
+        public String getHint() {
+            return hint;
+        }
+
+        public Integer getWordCount() {
+            return wordCount;
+        }
+    }
+}
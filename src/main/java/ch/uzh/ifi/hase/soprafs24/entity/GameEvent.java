@@ -0,0 +1,206 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+/**
+ * One entry of the append-only move log of a game. Events carry their outcome (e.g. the team
+ * whose turn it is afterwards), so replaying them does not need the game rules.
+ */
+@Document(collection = "GAME_EVENT")
+@CompoundIndex(name = "instance_seq", def = "{'instanceId': 1, 'seq': 1}", unique = true)
+public class GameEvent {
+
+    /**
+     * The log of a deleted game is removed with it. Logs of games that were dropped otherwise, e.g. by the
+     * TTL index of the games, are removed by the TTL index after this time, far longer than any game.
+     */
+    public static final int LOG_RETENTION_SECONDS = 7 * 24 * 60 * 60;
+
+    @Id
+    private String id;
+    private Long gameId;
+    // game instance the event belongs to, see Game#getInstanceId()
+    private String instanceId;
+    private long seq;
+    private GameEventType type;
+    @Indexed(expireAfterSeconds = LOG_RETENTION_SECONDS)
+    private Instant timestamp;
+
+    // team that acted and team whose turn it is after the event
+    private TeamColor team;
+    private TeamColor nextTeam;
+
+    // BOARD_CREATED, the board is derived from the words with BoardLayout and boardSeed
+    private Long boardSeed;
+    private List<String> words;
+    private GameMode gameMode;
+    private GameLanguage language;
+    private Integer turnDuration;
+
+    // HINT
+    private String hint;
+    private Integer wordCount;
+
+    // GUESS
+    private String word;
+    private Integer index;
+    private Integer guessedInHint;
+    private String status;
+    private TeamColor winningTeam;
+
+    public GameEvent() {}
+
+    public GameEvent(GameEventType type) {
+        this.type = type;
+        this.timestamp = Instant.now();
+    }
+
+    public static GameEvent boardCreated(long boardSeed, List<String> words, TeamColor startingTeam, GameMode gameMode,
+                                         GameLanguage language, Integer turnDuration) {
+        GameEvent event = new GameEvent(GameEventType.BOARD_CREATED);
+        event.boardSeed = boardSeed;
+        event.words = words;
+        event.team = startingTeam;
+        event.nextTeam = startingTeam;
+        event.gameMode = gameMode;
+        event.language = language;
+        event.turnDuration = turnDuration;
+        return event;
+    }
+
+    public static GameEvent hint(TeamColor team, String hint, Integer wordCount) {
+        GameEvent event = new GameEvent(GameEventType.HINT);
+        event.team = team;
+        event.nextTeam = team;
+        event.hint = hint;
+        event.wordCount = wordCount;
+        return event;
+    }
+
+    public static GameEvent guess(Game game, TeamColor team, String word, int index) {
+        GameEvent event = new GameEvent(GameEventType.GUESS);
+        event.team = team;
+        event.word = word;
+        event.index = index;
+        event.nextTeam = game.getTeamTurn();
+        event.guessedInHint = game.getGuessedInHint();
+        event.status = game.getStatus();
+        event.winningTeam = game.getWinningTeam();
+        return event;
+    }
+
+    public static GameEvent turnChange(GameEventType type, TeamColor team, Game game) {
+        GameEvent event = new GameEvent(type);
+        event.team = team;
+        event.nextTeam = game.getTeamTurn();
+        event.guessedInHint = game.getGuessedInHint();
+        return event;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public GameEventType getType() {
+        return type;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public TeamColor getTeam() {
+        return team;
+    }
+
+    public TeamColor getNextTeam() {
+        return nextTeam;
+    }
+
+    public Long getBoardSeed() {
+        return boardSeed;
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public GameLanguage getLanguage() {
+        return language;
+    }
+
+    public Integer getTurnDuration() {
+        return turnDuration;
+    }
+
+    public String getHint() {
+        return hint;
+    }
+
+    public Integer getWordCount() {
+        return wordCount;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public Integer getGuessedInHint() {
+        return guessedInHint;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public TeamColor getWinningTeam() {
+        return winningTeam;
+    }
+}
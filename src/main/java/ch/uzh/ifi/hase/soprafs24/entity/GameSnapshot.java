@@ -0,0 +1,133 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+/**
+ * State of a game after the event with the given sequence number. Replaying starts at the
+ * latest snapshot instead of the first event.
+ */
+@Document(collection = "GAME_SNAPSHOT")
+@CompoundIndex(name = "instance_seq", def = "{'instanceId': 1, 'seq': -1}")
+public class GameSnapshot {
+
+    @Id
+    private String id;
+    private Long gameId;
+    private String instanceId;
+    private long seq;
+    // removed like the events, see GameEvent#LOG_RETENTION_SECONDS
+    @Indexed(expireAfterSeconds = GameEvent.LOG_RETENTION_SECONDS)
+    private Instant createdAt;
+
+    private List<String> words;
+    // a seeded board is stored as its seed and guessed cards, like in the game
+    private Long boardSeed;
+    private int guessedMask;
+    private List<Card> board;
+    private TeamColor startingTeam;
+    private TeamColor teamTurn;
+    private String status;
+    private TeamColor winningTeam;
+    private GameMode gameMode;
+    private GameLanguage language;
+    private String currentHint;
+    private Integer wordCount;
+    private Integer guessedInHint;
+    private Integer turnDuration;
+
+    public GameSnapshot() {}
+
+    /**
+     * Copies the state of the game, so the snapshot can be written later while the game moves on.
+     */
+    public static GameSnapshot of(Game game) {
+        GameSnapshot snapshot = new GameSnapshot();
+        snapshot.gameId = game.getId();
+        snapshot.instanceId = game.getInstanceId();
+        snapshot.seq = game.getEventSeq();
+        snapshot.id = game.getInstanceId() + "-" + game.getEventSeq();
+        snapshot.createdAt = Instant.now();
+        snapshot.words = game.getWords() == null ? null : new ArrayList<>(game.getWords());
+        if (game.getBoardSeed() != null) {
+            snapshot.boardSeed = game.getBoardSeed();
+            snapshot.guessedMask = game.getGuessedMask();
+        } else if (game.getBoard() != null) {
+            snapshot.board = new ArrayList<>();
+            for (Card card : game.getBoard()) {
+                Card copy = new Card(card.getWord(), card.getColor());
+                copy.setGuessed(card.isGuessed());
+                snapshot.board.add(copy);
+            }
+        }
+        snapshot.startingTeam = game.getStartingTeam();
+        snapshot.teamTurn = game.getTeamTurn();
+        snapshot.status = game.getStatus();
+        snapshot.winningTeam = game.getWinningTeam();
+        snapshot.gameMode = game.getGameMode();
+        snapshot.language = game.getLanguage();
+        Map.Entry<String, Integer> hint = game.getCurrentHint();
+        snapshot.currentHint = hint == null ? null : hint.getKey();
+        snapshot.wordCount = hint == null ? null : hint.getValue();
+        snapshot.guessedInHint = game.getGuessedInHint();
+        snapshot.turnDuration = game.getTurnDuration();
+        return snapshot;
+    }
+
+    public Game toGame() {
+        Game game = new Game();
+        game.setId(gameId);
+        game.setInstanceId(instanceId);
+        game.setWords(words == null ? null : new ArrayList<>(words));
+        game.setStartingTeam(startingTeam);
+        if (boardSeed != null) {
+            game.setBoardSeed(boardSeed);
+            game.setGuessedMask(guessedMask);
+        } else {
+            game.setBoard(board == null ? null : new ArrayList<>(board));
+        }
+        game.setTeamTurn(teamTurn);
+        game.setStatus(status);
+        game.setWinningTeam(winningTeam);
+        game.setGameMode(gameMode);
+        game.setLanguage(language);
+        if (currentHint != null) {
+            game.setCurrentHint(currentHint, wordCount);
+        }
+        game.setGuessedInHint(guessedInHint);
+        game.setTurnDuration(turnDuration);
+        game.setEventSeq(seq);
+        return game;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,131 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+
+/**
+ * Board words of a game, folded and inflected once so a hint is checked with a few hash lookups.
+ * A hint is rejected if it is a board word up to case, accents, umlauts and ß ("Strasse" for "Straße",
+ * "Mueller" or "Muller" for "Müller"), or if it and a board word share a base form under the plural and
+ * inflection endings of the language ("horses" for "horse", "Hauses" for "Haus", "case" for "casa").
+ * Derivations are different words and left alone, "party" is not "part" and "Bauer" is not "Bau".
+ */
+public final class HintIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NOT_LETTER_OR_DIGIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // plural and inflection endings with the ending of the base form they are replaced by
+    private static final Map<GameLanguage, Inflection> INFLECTIONS = new EnumMap<>(GameLanguage.class);
+
+    static {
+        INFLECTIONS.put(GameLanguage.ENGLISH, new Inflection(3,
+            "s", "", "es", "", "ies", "y", "ed", "", "ed", "e", "ing", "", "ing", "e"));
+        // German stems are kept longer, so "Bauer" is not read as a plural of "Bau"
+        INFLECTIONS.put(GameLanguage.GERMAN, new Inflection(4,
+            "e", "", "n", "", "en", "", "er", "", "ern", "", "es", "", "s", "", "nen", ""));
+        INFLECTIONS.put(GameLanguage.FRENCH, new Inflection(3,
+            "s", "", "x", "", "aux", "al"));
+        // only endings of the same noun class are paired, "caso" is not a form of "casa"
+        INFLECTIONS.put(GameLanguage.ITALIAN, new Inflection(3,
+            "i", "o", "i", "e", "e", "a", "chi", "co", "che", "ca", "ghi", "go", "ghe", "ga"));
+    }
+
+    private final GameLanguage language;
+    // folded board words and their base forms
+    private final Set<String> forms = new HashSet<>();
+
+    private HintIndex(GameLanguage language) {
+        this.language = language;
+    }
+
+    /**
+     * @param language language of the words, without a language only folded words are compared
+     */
+    public static HintIndex of(Collection<String> boardWords, GameLanguage language) {
+        HintIndex index = new HintIndex(language);
+        if (boardWords != null) {
+            for (String word : boardWords) {
+                for (String folded : fold(word)) {
+                    index.forms.addAll(index.baseForms(folded));
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return true if the hint is a board word or a form of one
+     */
+    public boolean matches(String hint) {
+        for (String folded : fold(hint)) {
+            for (String form : baseForms(folded)) {
+                if (forms.contains(form)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Case folded, without accents and punctuation. Umlauts are folded both ways, as "ae" and as "a",
+     * since both spellings are common when typing without them.
+     */
+    static Set<String> fold(String word) {
+        if (word == null) {
+            return Set.of();
+        }
+        String lower = word.trim().toLowerCase(Locale.ROOT).replace("ß", "ss").replace("ẞ", "ss");
+        String expanded = lower.replace("ä", "ae").replace("ö", "oe").replace("ü", "ue");
+        return Stream.of(lower, expanded)
+            .map(HintIndex::stripMarks)
+            .filter(folded -> !folded.isEmpty())
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * The folded word and every base form it can be an inflection of.
+     */
+    Set<String> baseForms(String folded) {
+        Set<String> result = new HashSet<>();
+        result.add(folded);
+        Inflection inflection = language == null ? null : INFLECTIONS.get(language);
+        if (inflection != null) {
+            for (int i = 0; i < inflection.endings.length; i += 2) {
+                String ending = inflection.endings[i];
+                if (folded.endsWith(ending) && folded.length() - ending.length() >= inflection.minStemLength) {
+                    result.add(folded.substring(0, folded.length() - ending.length()) + inflection.endings[i + 1]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String stripMarks(String word) {
+        String decomposed = Normalizer.normalize(word, Normalizer.Form.NFD);
+        return NOT_LETTER_OR_DIGIT.matcher(MARKS.matcher(decomposed).replaceAll("")).replaceAll("");
+    }
+
+    private static final class Inflection {
+
+        // shorter stems are left alone, "bus" is not "bu"
+        private final int minStemLength;
+        // pairs of ending and replacement
+        private final String[] endings;
+
+        private Inflection(int minStemLength, String... endings) {
+            this.minStemLength = minStemLength;
+            this.endings = endings;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Highest id reserved so far for the entities of a collection. Ids are reserved in blocks by
+ * incrementing the value atomically, see CustomMongoRepositoryImpl.
+ */
+@Document(collection = "ID_SEQUENCE")
+public class IdSequence {
+
+    // name of the collection the ids are for
+    @Id
+    private String id;
+    private long value;
+
+    public String getId() {
+        return id;
+    }
+
+    public long getValue() {
+        return value;
+    }
+}
@@ -40,6 +40,9 @@ public class Lobby extends DatabaseEntity {
     private List<String> customWords = new ArrayList<>();
 
     private Instant createdAt;
+
+    @Indexed(expireAfterSeconds = EXPIRY_GRACE_SECONDS)
+    private Instant expiresAt;
   
     private String theme; 
 
@@ -76,6 +79,15 @@ public class Lobby extends DatabaseEntity {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
     public void setGameMode(GameMode gameMode) {
         if (gameMode != null)
             this.gameMode = gameMode;
@@ -1,6 +1,9 @@
 
 package ch.uzh.ifi.hase.soprafs24.entity;
 
+import java.time.Instant;
+
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -17,6 +20,9 @@ public class Player extends DatabaseEntity {
 
     private PlayerRole role;
     private Boolean ready;
+
+    @Indexed(expireAfterSeconds = EXPIRY_GRACE_SECONDS)
+    private Instant expiresAt;
     
     public Player() {
     }
@@ -47,4 +53,12 @@ public class Player extends DatabaseEntity {
     public void setReady(Boolean ready) {
         this.ready = ready;
     }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
 }
\ No newline at end of file
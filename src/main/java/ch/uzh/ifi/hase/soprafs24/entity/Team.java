@@ -1,10 +1,12 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -21,6 +23,9 @@ public class Team extends DatabaseEntity {
     @DBRef(lazy = true)
     private Player spymaster;
 
+    @Indexed(expireAfterSeconds = EXPIRY_GRACE_SECONDS)
+    private Instant expiresAt;
+
     public TeamColor getColor() {
         return color;
     }
@@ -71,4 +76,12 @@ public class Team extends DatabaseEntity {
     public void setSpymaster(Player spymaster) {
         this.spymaster = spymaster;
     }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
 }
\ No newline at end of file
@@ -1,16 +1,32 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
 
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
 import org.springframework.data.mongodb.repository.support.SimpleMongoRepository;
 
 import ch.uzh.ifi.hase.soprafs24.entity.DatabaseEntity;
+import ch.uzh.ifi.hase.soprafs24.entity.IdSequence;
 
 public class CustomMongoRepositoryImpl<T extends DatabaseEntity> extends SimpleMongoRepository<T, Long> implements CustomMongoRepository<T> {
 
+    // ids reserved per round trip to the sequence
+    static final int ID_BLOCK_SIZE = 20;
+
+    private final MongoEntityInformation<T, Long> metadata;
+    private final MongoOperations mongoOperations;
+    private final IdAllocator idAllocator = new IdAllocator(ID_BLOCK_SIZE, this::reserveIds, this::syncSequence);
+    // guarded by idAllocator
+    private boolean sequenceSynced;
+
     public CustomMongoRepositoryImpl(MongoEntityInformation<T, Long> metadata, MongoOperations mongoOperations) {
         super(metadata, mongoOperations);
+        this.metadata = metadata;
+        this.mongoOperations = mongoOperations;
     }
 
     @Override
@@ -25,17 +41,47 @@ public class CustomMongoRepositoryImpl<T extends DatabaseEntity> extends SimpleM
         // If the id was not instantiated, set it to the next available id, 
         // If it was instantiated it is an update and we do not need to set a new id
         if (entity.getId() == null || entity.getId() <= 0) {
-            Long id = getMaxId();
-            entity.setId(id);
+            entity.setId(idAllocator.nextId());
+        } else if (idAllocator.markUsed(entity.getId())) {
+            // an id set by hand above the sequence, the sequence must not hand it out again. An id in a block
+            // that another server reserved but has not used yet is not detected and can still be reused
+            mongoOperations.upsert(sequenceQuery(), new Update().max("value", entity.getId()), IdSequence.class);
         }
         return super.save(entity);
     }
-    
-    private Long getMaxId() {
-        var orderedFields = super.findAll(Sort.by(Sort.Direction.DESC, "_id"));
-        if (orderedFields == null || orderedFields.isEmpty())
-            return 1L;
-        Long id = orderedFields.get(0).getId();
-        return id + 1;
+
+    /**
+     * Reserves the next block of ids with an atomic increment of the sequence of this collection and
+     * returns its last id.
+     */
+    private long reserveIds() {
+        Query sequence = sequenceQuery();
+        if (!sequenceSynced) {
+            syncSequence();
+        }
+        IdSequence reserved = mongoOperations.findAndModify(sequence, new Update().inc("value", ID_BLOCK_SIZE),
+            FindAndModifyOptions.options().returnNew(true).upsert(true), IdSequence.class);
+        return reserved.getValue();
+    }
+
+    /**
+     * Moves the sequence past the documents saved before it existed and returns its value.
+     */
+    private long syncSequence() {
+        IdSequence synced = mongoOperations.findAndModify(sequenceQuery(), new Update().max("value", getMaxId()),
+            FindAndModifyOptions.options().returnNew(true).upsert(true), IdSequence.class);
+        sequenceSynced = true;
+        return synced == null ? 0L : synced.getValue();
+    }
+
+    private Query sequenceQuery() {
+        return new Query(Criteria.where("_id").is(metadata.getCollectionName()));
+    }
+
+    // reads only the first document of the _id index
+    private long getMaxId() {
+        Query highest = new Query().with(Sort.by(Sort.Direction.DESC, "_id")).limit(1);
+        T entity = mongoOperations.findOne(highest, metadata.getJavaType());
+        return entity == null || entity.getId() == null ? 0L : entity.getId();
     }
 }
@@ -2,6 +2,12 @@ package ch.uzh.ifi.hase.soprafs24.repository;
 
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 
-public interface GameRepository extends CustomMongoRepository<Game> {
-        
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.Query;
+
+public interface GameRepository extends CustomMongoRepository<Game>, GameUpdateRepository {
+
+    @Query(value = "{ 'gameMode': 'TIMED', 'status': 'playing' }", fields = "{ 'turnDuration': 1, 'turnDeadline': 1 }")
+    List<Game> findRunningTimedGames();
 }
@@ -0,0 +1,20 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import java.util.Map;
+
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+/**
+ * Field-level updates for games, so a move does not rewrite the whole document.
+ */
+public interface GameUpdateRepository {
+
+    /**
+     * Sets the given fields, increments the given counters and the version of the game, but only if the stored
+     * game still has the expected version, turn and status.
+     *
+     * @return false if the update did not match, i.e. the game was changed by another writer
+     */
+    boolean applyChanges(Long gameId, long expectedVersion, TeamColor expectedTurn, String expectedStatus,
+                         Map<String, Object> changes, Map<String, Integer> increments);
+}
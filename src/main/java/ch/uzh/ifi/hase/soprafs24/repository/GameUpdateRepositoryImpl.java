@@ -0,0 +1,36 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+
+public class GameUpdateRepositoryImpl implements GameUpdateRepository {
+
+    private final MongoOperations mongoOperations;
+
+    public GameUpdateRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public boolean applyChanges(Long gameId, long expectedVersion, TeamColor expectedTurn, String expectedStatus,
+                                Map<String, Object> changes, Map<String, Integer> increments) {
+        Query query = new Query(Criteria.where("_id").is(gameId)
+            .and("version").is(expectedVersion)
+            .and("teamTurn").is(expectedTurn)
+            .and("status").is(expectedStatus));
+
+        Update update = new Update();
+        changes.forEach(update::set);
+        increments.forEach(update::inc);
+        update.inc("version", 1);
+
+        return mongoOperations.updateFirst(query, update, Game.class).getMatchedCount() > 0;
+    }
+}
@@ -0,0 +1,61 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out ids from blocks reserved in the database (hi/lo), so only every blockSize-th id costs a
+ * round trip. Ids of a block that is not used up, e.g. because the server restarts, are skipped.
+ */
+final class IdAllocator {
+
+    private final int blockSize;
+    // reserves the next block and returns its last id
+    private final LongSupplier reserveBlock;
+    // returns the value of the sequence, read once before the first id set by hand is checked
+    private final LongSupplier readSequence;
+
+    // guarded by this
+    private long next;
+    private long last;
+    // highest id known to be covered by the sequence, see markUsed
+    private long highestMarked;
+    private boolean sequenceRead;
+
+    IdAllocator(int blockSize, LongSupplier reserveBlock, LongSupplier readSequence) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.blockSize = blockSize;
+        this.reserveBlock = reserveBlock;
+        this.readSequence = readSequence;
+    }
+
+    synchronized long nextId() {
+        if (next == 0 || next > last) {
+            last = reserveBlock.getAsLong();
+            next = last - blockSize + 1;
+        }
+        return next++;
+    }
+
+    /**
+     * Reports the id of a saved entity that was not allocated here, e.g. an update or an id set by hand. An id
+     * in the current block is not handed out any more. Returns true if the id is above the sequence and every
+     * id reported so far, the sequence then has to be moved past it. Ids of existing entities are covered by
+     * the sequence, so after the sequence has been read once they cost no round trip.
+     */
+    synchronized boolean markUsed(long id) {
+        if (!sequenceRead) {
+            highestMarked = Math.max(highestMarked, readSequence.getAsLong());
+            sequenceRead = true;
+        }
+        if (id > last && id > highestMarked) {
+            highestMarked = id;
+            return true;
+        }
+        if (id >= next && id <= last) {
+            next = id + 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+import ch.uzh.ifi.hase.soprafs24.entity.Card;
+
+/**
+ * Game as seen by one player. Field operatives only get the colors of guessed cards.
+ */
+public class GameGetDTO {
+
+    private Long id;
+    private TeamColor startingTeam;
+    private TeamColor teamTurn;
+    private String status;
+    private TeamColor winningTeam;
+    private GameMode gameMode;
+    private Integer turnDuration;
+    private List<Card> board;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TeamColor getStartingTeam() {
+        return startingTeam;
+    }
+
+    public void setStartingTeam(TeamColor startingTeam) {
+        this.startingTeam = startingTeam;
+    }
+
+    public TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    public void setTeamTurn(TeamColor teamTurn) {
+        this.teamTurn = teamTurn;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public TeamColor getWinningTeam() {
+        return winningTeam;
+    }
+
+    public void setWinningTeam(TeamColor winningTeam) {
+        this.winningTeam = winningTeam;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public void setGameMode(GameMode gameMode) {
+        this.gameMode = gameMode;
+    }
+
+    public Integer getTurnDuration() {
+        return turnDuration;
+    }
+
+    public void setTurnDuration(Integer turnDuration) {
+        this.turnDuration = turnDuration;
+    }
+
+    public List<Card> getBoard() {
+        return board;
+    }
+
+    public void setBoard(List<Card> board) {
+        this.board = board;
+    }
+}
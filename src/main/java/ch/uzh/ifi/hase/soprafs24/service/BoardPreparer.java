@@ -0,0 +1,255 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.entity.Lobby;
+import ch.uzh.ifi.hase.soprafs24.service.QuotaGovernor.Priority;
+
+/**
+ * Generates the words of the next game in the background while a lobby fills up, so starting the game
+ * does not wait for the word API. A prepared word list belongs to the settings of the lobby it was generated
+ * for (mode, theme, language, custom words), changing a setting discards it and starts over.
+ */
+@Component
+public class BoardPreparer {
+
+    // players in the lobby before words are prepared, a game needs at least 4
+    static final int PLAYER_THRESHOLD = 3;
+    // settings often change in quick succession, generation starts once they are stable
+    static final long PREPARE_DELAY_MS = 1000;
+    static final int BOARD_SIZE = 25;
+
+    private final Logger log = LoggerFactory.getLogger(BoardPreparer.class);
+    private final WordGenerationService wordGenerationService;
+    private final WordBank wordBank;
+    private final Map<Long, PreparedWords> prepared = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    @Autowired
+    public BoardPreparer(WordGenerationService wordGenerationService, WordBank wordBank) {
+        this(wordGenerationService, wordBank, newExecutor());
+    }
+
+    // tests pass an executor that records the scheduled preparations
+    BoardPreparer(WordGenerationService wordGenerationService, WordBank wordBank, ScheduledExecutorService executor) {
+        this.wordGenerationService = wordGenerationService;
+        this.wordBank = wordBank;
+        this.executor = executor;
+    }
+
+    private static ScheduledExecutorService newExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "board-preparer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts generating words for the lobby if it is close to starting a game. Nothing happens
+     * if words for the current settings are already prepared or being generated. Called after every
+     * change of the settings or players of a lobby.
+     */
+    public void prepare(Lobby lobby) {
+        if (lobby.isGameStarted()) {
+            return;
+        }
+        if (lobby.getPlayers().size() < PLAYER_THRESHOLD) {
+            invalidate(lobby.getId());
+            return;
+        }
+        Settings settings = new Settings(lobby.getGameMode(), lobby.getTheme(), lobby.getLanguage(), lobby.getCustomWords());
+        prepared.compute(lobby.getId(), (lobbyId, current) -> {
+            if (current != null && current.settings.equals(settings)) {
+                return current;
+            }
+            if (current != null) {
+                current.cancel();
+            }
+            log.debug("Preparing words for lobby {}", lobbyId);
+            return new PreparedWords(settings);
+        });
+    }
+
+    /**
+     * Discards the words prepared for the lobby, e.g. after a setting changed or the lobby was closed.
+     */
+    public void invalidate(Long lobbyId) {
+        PreparedWords current = prepared.remove(lobbyId);
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public List<String> takeOrGenerate(Lobby lobby, String theme, GameLanguage language) {
+        return takeOrGenerateAsync(lobby, theme, language).join();
+    }
+
+    /**
+     * Returns the words prepared for the lobby if they match the given settings, waiting for a generation
+     * that is still running. Otherwise the words are generated right away.
+     */
+    public CompletableFuture<List<String>> takeOrGenerateAsync(Lobby lobby, String theme, GameLanguage language) {
+        Settings settings = new Settings(lobby.getGameMode(), theme, language, lobby.getCustomWords());
+        PreparedWords current = prepared.remove(lobby.getId());
+        if (current != null && current.settings.equals(settings)) {
+            return current.await().thenCompose(words -> words != null && words.size() == BOARD_SIZE
+                ? CompletableFuture.completedFuture(words)
+                : generate(settings, Priority.INTERACTIVE));
+        } else if (current != null) {
+            current.cancel();
+        }
+        return generate(settings, Priority.INTERACTIVE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * CLASSIC boards come from the offline word bank. Otherwise custom words of OWN_WORDS lobbies first,
+     * the rest is filled up from the word API. Words the API could not deliver are taken from the word bank.
+     * A game start that waits for the words requests them with a higher priority than a preparation.
+     */
+    private CompletableFuture<List<String>> generate(Settings settings, Priority priority) {
+        if (settings.gameMode == GameMode.CLASSIC && wordBank.isAvailable(settings.language)) {
+            return CompletableFuture.completedFuture(wordBank.sample(settings.language, BOARD_SIZE));
+        }
+        List<String> finalWords = new ArrayList<>();
+
+        if (settings.gameMode == GameMode.OWN_WORDS) {
+            for (String word : settings.customWords) {
+                String upper = word.toUpperCase();
+                if (!finalWords.contains(upper)) {
+                    finalWords.add(upper);
+                }
+            }
+        }
+        if (finalWords.size() >= BOARD_SIZE) {
+            return CompletableFuture.completedFuture(finalWords);
+        }
+        //if theme is missing or default use words without theme
+        String theme = settings.theme;
+        CompletableFuture<List<String>> additional = theme == null || theme.equalsIgnoreCase("default")
+            ? wordGenerationService.getWordsFromApiAsync(settings.language, priority)
+            : wordGenerationService.getWordsFromApiAsync(theme, settings.language, priority);
+
+        return additional.thenApply(words -> {
+            fill(finalWords, words);
+            if (finalWords.size() < BOARD_SIZE) {
+                log.warn("Word API returned too few words, filling the board from the {} word bank", settings.language);
+                fill(finalWords, wordBank.sample(settings.language, BOARD_SIZE));
+            }
+            return finalWords;
+        });
+    }
+
+    private static void fill(List<String> finalWords, List<String> words) {
+        for (String word : words) {
+            String upper = word.toUpperCase();
+            if (!finalWords.contains(upper)) {
+                finalWords.add(upper);
+                if (finalWords.size() == BOARD_SIZE) break;
+            }
+        }
+    }
+
+    private final class PreparedWords {
+
+        private final Settings settings;
+        private final CompletableFuture<List<String>> words = new CompletableFuture<>();
+        private final ScheduledFuture<?> task;
+
+        private PreparedWords(Settings settings) {
+            this.settings = settings;
+            this.task = executor.schedule(() -> run(Priority.PREGENERATION), PREPARE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private void run(Priority priority) {
+            try {
+                generate(settings, priority).whenComplete((result, e) -> {
+                    if (e != null) {
+                        words.completeExceptionally(e);
+                    } else {
+                        words.complete(result);
+                    }
+                });
+            } catch (Exception e) {
+                words.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Completes with the words, or null if preparing them failed. A generation that has not started yet
+         * starts right away, a game start is waiting for it.
+         */
+        private CompletableFuture<List<String>> await() {
+            if (task.cancel(false)) {
+                run(Priority.INTERACTIVE);
+            }
+            return words.handle((result, e) -> {
+                if (e != null) {
+                    log.warn("Preparing words failed, generating them again: {}", e.getMessage());
+                    return null;
+                }
+                return result;
+            });
+        }
+
+        private void cancel() {
+            // a request that is already running completes, its words are dropped
+            task.cancel(false);
+        }
+    }
+
+    private static final class Settings {
+
+        private final GameMode gameMode;
+        private final String theme;
+        private final GameLanguage language;
+        private final List<String> customWords;
+
+        private Settings(GameMode gameMode, String theme, GameLanguage language, List<String> customWords) {
+            this.gameMode = gameMode;
+            this.theme = theme;
+            this.language = language;
+            this.customWords = customWords != null ? List.copyOf(customWords) : List.of();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Settings)) {
+                return false;
+            }
+            Settings other = (Settings) o;
+            return gameMode == other.gameMode && Objects.equals(theme, other.theme)
+                && language == other.language && customWords.equals(other.customWords);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(gameMode, theme, language, customWords);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker for an upstream API. It opens when too many of the last calls failed or were slow,
+ * while it is open calls are refused right away. After the open time one probe call is let through,
+ * the breaker closes again if it succeeds. Every state change starts a new window, results of calls
+ * permitted before the change are not counted. Also keeps the latencies of recent successful calls.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    static final int WINDOW_SIZE = 20;
+    // calls in the window before the rates are looked at
+    static final int MIN_CALLS = 5;
+    static final double FAILURE_RATE_THRESHOLD = 0.5;
+    static final double SLOW_CALL_RATE_THRESHOLD = 0.5;
+    private static final int LATENCY_SAMPLES = 100;
+
+    private final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+    private final String name;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    // ring buffers of the last calls, guarded by this
+    private final boolean[] failed = new boolean[WINDOW_SIZE];
+    private final boolean[] slow = new boolean[WINDOW_SIZE];
+    private int calls;
+    private int next;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int nextLatency;
+
+    private State state = State.CLOSED;
+    // incremented by every state change, permits of an earlier state are not counted
+    private long generation;
+    private long openedAt;
+    private boolean probeRunning;
+    private long rejectedCalls;
+    private long rejectedBeforeOpen;
+
+    /**
+     * Permission for one call, to be reported once with {@link #onSuccess(long)}, {@link #onFailure(long)}
+     * or, if the call was not made, {@link #release()}. Later reports are ignored.
+     */
+    public final class Permit {
+
+        private final long permitGeneration;
+        private final boolean probe;
+        // guarded by the breaker
+        private boolean reported;
+
+        private Permit(long permitGeneration, boolean probe) {
+            this.permitGeneration = permitGeneration;
+            this.probe = probe;
+        }
+
+        public void onSuccess(long latencyNanos) {
+            report(this, false, latencyNanos);
+        }
+
+        public void onFailure(long latencyNanos) {
+            report(this, true, latencyNanos);
+        }
+
+        public void release() {
+            synchronized (CircuitBreaker.this) {
+                if (!reported) {
+                    reported = true;
+                    if (probe && permitGeneration == generation) {
+                        probeRunning = false;
+                    }
+                }
+            }
+        }
+    }
+
+    public CircuitBreaker(String name, long slowCallMs, long openMs) {
+        this(name, slowCallMs, openMs, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, long slowCallMs, long openMs, LongSupplier clock) {
+        this.name = name;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a permit if a call may be made, or null if the call is refused. While half open only one
+     * probe is permitted until its result is reported.
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            changeState(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return new Permit(generation, false);
+        }
+        if (state == State.HALF_OPEN && !probeRunning) {
+            probeRunning = true;
+            return new Permit(generation, true);
+        }
+        rejectedCalls++;
+        return null;
+    }
+
+    private synchronized void report(Permit permit, boolean failure, long latencyNanos) {
+        if (permit.reported) {
+            return;
+        }
+        permit.reported = true;
+        if (!failure) {
+            latencies[nextLatency] = latencyNanos;
+            nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+        if (permit.permitGeneration != generation) {
+            return;
+        }
+        boolean slowCall = latencyNanos >= slowCallNanos;
+        if (permit.probe) {
+            changeState(failure || slowCall ? State.OPEN : State.CLOSED);
+            return;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        next = (next + 1) % WINDOW_SIZE;
+        calls = Math.min(calls + 1, WINDOW_SIZE);
+
+        if (calls >= MIN_CALLS && (rate(failed) >= FAILURE_RATE_THRESHOLD || rate(slow) >= SLOW_CALL_RATE_THRESHOLD)) {
+            changeState(State.OPEN);
+        }
+    }
+
+    private void changeState(State newState) {
+        if (newState == State.OPEN) {
+            log.warn("Circuit breaker {} opened", name);
+            if (state == State.CLOSED) {
+                rejectedBeforeOpen = rejectedCalls;
+            }
+            openedAt = clock.getAsLong();
+        } else if (newState == State.CLOSED) {
+            log.info("Circuit breaker {} closed, {} calls were refused while it was open", name,
+                rejectedCalls - rejectedBeforeOpen);
+        }
+        state = newState;
+        generation++;
+        calls = 0;
+        next = 0;
+        probeRunning = false;
+    }
+
+    private double rate(boolean[] flags) {
+        int count = 0;
+        for (int i = 0; i < calls; i++) {
+            if (flags[i]) {
+                count++;
+            }
+        }
+        return (double) count / calls;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    /**
+     * Latency percentile of the recent successful calls in ms, or the default if there are too few samples.
+     */
+    public synchronized long getLatencyPercentileMs(double percentile, long defaultMs) {
+        if (latencyCount < MIN_CALLS) {
+            return defaultMs;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * latencyCount) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+}
@@ -0,0 +1,106 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import ch.uzh.ifi.hase.soprafs24.entity.DatabaseEntity;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.Lobby;
+
+/**
+ * Removes expired lobbies and games, finished games are moved to the archive. Lobbies, teams, players and games carry their deadline in
+ * {@code expiresAt}, so expiry survives a restart. The sweeper closes expired lobbies with their teams
+ * and players and notifies the clients. Documents it misses, e.g. while the server is down, are
+ * removed by the TTL indexes after {@link DatabaseEntity#EXPIRY_GRACE_SECONDS}.
+ */
+@Component
+public class ExpirySweeper {
+
+    private static final long SWEEP_INTERVAL_MS = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(ExpirySweeper.class);
+    private final MongoOperations mongoOperations;
+    private final LobbyService lobbyService;
+    private final GameService gameService;
+    private final GameArchiver gameArchiver;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expiry-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExpirySweeper(MongoOperations mongoOperations, LobbyService lobbyService, GameService gameService, GameArchiver gameArchiver) {
+        this.mongoOperations = mongoOperations;
+        this.lobbyService = lobbyService;
+        this.gameService = gameService;
+        this.gameArchiver = gameArchiver;
+        sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void sweep() {
+        Instant now = Instant.now();
+        for (Lobby lobby : expired(Lobby.class, now)) {
+            try {
+                lobbyService.closeLobby(lobby.getId());
+            } catch (Exception e) {
+                log.warn("Failed to close expired lobby {}: {}", lobby.getId(), e.getMessage());
+            }
+        }
+        List<Game> games = expired(Game.class, now);
+        Map<Long, CompletableFuture<Void>> archived = new HashMap<>();
+        for (Game game : games) {
+            if ("finished".equals(game.getStatus())) {
+                try {
+                    archived.put(game.getId(), gameArchiver.archive(game));
+                } catch (Exception e) {
+                    log.warn("Failed to archive expired game {}: {}", game.getId(), e.getMessage());
+                }
+            }
+        }
+        if (!archived.isEmpty()) {
+            // one batch for the finished games of this sweep, they are deleted only once their archive is stored
+            gameArchiver.flush();
+        }
+        for (Game game : games) {
+            CompletableFuture<Void> written = archived.get(game.getId());
+            if ("finished".equals(game.getStatus()) && (written == null || !written.isDone())) {
+                log.warn("Archive of game {} is not stored yet, deleting it on a later sweep", game.getId());
+                continue;
+            }
+            try {
+                gameService.deleteGame(game.getId());
+            } catch (Exception e) {
+                log.warn("Failed to delete expired game {}: {}", game.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdown();
+    }
+
+    private <T> List<T> expired(Class<T> type, Instant now) {
+        try {
+            return mongoOperations.find(new Query(Criteria.where("expiresAt").lte(now)), type);
+        } catch (Exception e) {
+            log.warn("Failed to look up expired {} documents: {}", type.getSimpleName(), e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import ch.uzh.ifi.hase.soprafs24.entity.BoardLayout;
+import ch.uzh.ifi.hase.soprafs24.entity.Card;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameArchive;
+
+/**
+ * Moves finished games into the compact {@link GameArchive}. Archives are inserted in batches. The moves
+ * are read from the move log when the game is queued, the log itself is removed with the game once the
+ * archive is stored.
+ */
+@Component
+public class GameArchiver {
+
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(GameArchiver.class);
+    private final MongoOperations mongoOperations;
+    private final GameEventLog gameEventLog;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-archive-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GameArchiver(MongoOperations mongoOperations, GameEventLog gameEventLog) {
+        this.mongoOperations = mongoOperations;
+        this.gameEventLog = gameEventLog;
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the finished game for the archive. The future completes once the archive is stored, the game
+     * must not be deleted before.
+     */
+    public CompletableFuture<Void> archive(Game game) {
+        Pending entry = new Pending(GameArchive.of(game, gameEventLog.getEvents(game.getInstanceId())));
+        pending.add(entry);
+        return entry.written;
+    }
+
+    public synchronized void flush() {
+        List<Pending> batch = new ArrayList<>();
+        Pending next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<GameArchive> archives = new ArrayList<>(batch.size());
+        batch.forEach(entry -> archives.add(entry.archive));
+        try {
+            mongoOperations.insert(archives, GameArchive.class);
+            batch.forEach(entry -> entry.written.complete(null));
+        } catch (Exception e) {
+            // part of the batch may have been written, an archive whose id exists already is not written again
+            log.warn("Failed to insert {} archived games, writing them one by one: {}", batch.size(), e.getMessage());
+            for (Pending entry : batch) {
+                try {
+                    mongoOperations.insert(entry.archive);
+                    entry.written.complete(null);
+                } catch (DuplicateKeyException alreadyWritten) {
+                    // written by the failed batch
+                    entry.written.complete(null);
+                } catch (Exception retryFailed) {
+                    pending.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the archive of the last game the lobby finished.
+     */
+    public Optional<GameArchive> find(Long gameId) {
+        flush();
+        Query latest = new Query(Criteria.where("gameId").is(gameId)).with(Sort.by(Sort.Direction.DESC, "finishedAt")).limit(1);
+        return Optional.ofNullable(mongoOperations.findOne(latest, GameArchive.class));
+    }
+
+    /**
+     * Rebuilds the final board of an archived game.
+     */
+    public static List<Card> board(GameArchive archive) {
+        List<String> words = archive.getWords();
+        List<Card> board;
+        if (archive.getBoardSeed() != null) {
+            board = BoardLayout.generate(words, archive.getStartingTeam(), archive.getBoardSeed());
+        } else {
+            board = new ArrayList<>();
+            for (int i = 0; i < words.size(); i++) {
+                board.add(new Card(words.get(i), archive.colorAt(i)));
+            }
+        }
+        for (int i = 0; i < board.size(); i++) {
+            board.get(i).setGuessed(archive.isGuessed(i));
+        }
+        return board;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private static final class Pending {
+
+        private final GameArchive archive;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private Pending(GameArchive archive) {
+            this.archive = archive;
+        }
+    }
+}
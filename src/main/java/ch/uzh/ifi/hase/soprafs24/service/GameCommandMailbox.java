@@ -0,0 +1,153 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes all commands that modify a game. Every game has its own mailbox, commands of one game
+ * run one after another in submission order, commands of different games run in parallel on a small shared pool.
+ * A mailbox only exists while it has commands to run, an idle one is dropped.
+ */
+@Component
+public class GameCommandMailbox {
+
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // commands run per turn before the thread is handed to the next game
+    private static final int BATCH_SIZE = 32;
+
+    private final Logger log = LoggerFactory.getLogger(GameCommandMailbox.class);
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> currentGame = new ThreadLocal<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE, runnable -> {
+        Thread thread = new Thread(runnable, "game-mailbox-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queues the command in the mailbox of the game.
+     */
+    public <T> CompletableFuture<T> submit(Long gameId, Supplier<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(command.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        // queued while the map holds the mailbox, so an idle mailbox is never dropped with a command in it
+        Mailbox mailbox = mailboxes.compute(gameId, (id, current) -> {
+            Mailbox target = current != null ? current : new Mailbox(id);
+            target.commands.add(task);
+            return target;
+        });
+        mailbox.schedule();
+        return future;
+    }
+
+    /**
+     * Runs the command in the mailbox of the game and waits for its result. Exceptions thrown
+     * by the command are rethrown unchanged. Called from a command of the same game, it runs right away.
+     * A command may not wait for another game, the pool threads could end up waiting for each other,
+     * it has to {@link #submit} instead.
+     */
+    public <T> T call(Long gameId, Supplier<T> command) {
+        Long caller = currentGame.get();
+        if (gameId.equals(caller)) {
+            return command.get();
+        }
+        if (caller != null) {
+            throw new IllegalStateException("Command of game " + caller + " waits for game " + gameId);
+        }
+        try {
+            return submit(gameId, command).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public void run(Long gameId, Runnable command) {
+        call(gameId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    // mailboxes with queued or running commands
+    int activeMailboxes() {
+        return mailboxes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private final class Mailbox {
+
+        private final Long gameId;
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(Long gameId) {
+            this.gameId = gameId;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            currentGame.set(gameId);
+            try {
+                Runnable command;
+                for (int i = 0; i < BATCH_SIZE && (command = commands.poll()) != null; i++) {
+                    try {
+                        command.run();
+                    } catch (Throwable e) {
+                        log.warn("Command for game {} failed: {}", gameId, e.getMessage());
+                    }
+                }
+            } finally {
+                currentGame.remove();
+                scheduled.set(false);
+            }
+            // a command may have been queued after the last poll
+            if (!commands.isEmpty()) {
+                schedule();
+            } else {
+                mailboxes.computeIfPresent(gameId, (id, mailbox) -> mailbox.isIdle() ? null : mailbox);
+            }
+        }
+
+        private boolean isIdle() {
+            return commands.isEmpty() && !scheduled.get();
+        }
+    }
+}
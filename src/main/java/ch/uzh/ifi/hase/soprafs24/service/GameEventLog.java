@@ -0,0 +1,226 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import ch.uzh.ifi.hase.soprafs24.entity.BoardKernel;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
+import ch.uzh.ifi.hase.soprafs24.entity.GameSnapshot;
+
+/**
+ * Append-only move log of all games. Events are buffered and inserted in batches, every
+ * {@value #SNAPSHOT_INTERVAL} events the state of the game is stored as a snapshot.
+ * A game can be rebuilt from its latest snapshot and the events after it. The log is keyed by the
+ * instance id of the game, since a lobby plays all its games under the same game id.
+ */
+@Component
+public class GameEventLog {
+
+    static final int SNAPSHOT_INTERVAL = 25;
+    private static final long FLUSH_INTERVAL_MS = 200;
+
+    private final Logger log = LoggerFactory.getLogger(GameEventLog.class);
+    private final MongoOperations mongoOperations;
+    private final Queue<GameEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final Queue<GameSnapshot> pendingSnapshots = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-event-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GameEventLog(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends the event to the log of the game. Must be called in the mailbox of the game,
+     * after the event has been applied to the game.
+     */
+    public void append(Game game, GameEvent event) {
+        if (game.getInstanceId() == null) {
+            // written before games had an instance id, the log starts with this event
+            game.setInstanceId(newInstanceId());
+        }
+        long seq = game.getEventSeq() + 1;
+        event.setGameId(game.getId());
+        event.setInstanceId(game.getInstanceId());
+        event.setSeq(seq);
+        event.setId(game.getInstanceId() + "-" + seq);
+        game.setEventSeq(seq);
+        pendingEvents.add(event);
+        if (seq % SNAPSHOT_INTERVAL == 0) {
+            pendingSnapshots.add(GameSnapshot.of(game));
+        }
+    }
+
+    public synchronized void flush() {
+        // events first, a snapshot must never be ahead of the log
+        insert(pendingEvents, GameEvent.class);
+        insert(pendingSnapshots, GameSnapshot.class);
+    }
+
+    /**
+     * Applies the logged events that are newer than the game, e.g. when the process stopped
+     * before the game document was written.
+     *
+     * @return true if at least one event was applied
+     */
+    public boolean replayPending(Game game) {
+        if (game.getInstanceId() == null) {
+            return false;
+        }
+        flush();
+        List<GameEvent> events = eventsAfter(game.getInstanceId(), game.getEventSeq());
+        for (GameEvent event : events) {
+            apply(game, event);
+        }
+        if (!events.isEmpty()) {
+            log.info("Recovered {} events for game {} from the move log", events.size(), game.getId());
+        }
+        return !events.isEmpty();
+    }
+
+    /**
+     * Rebuilds the game instance from its latest snapshot and the events after it.
+     */
+    public Optional<Game> rebuild(String instanceId) {
+        flush();
+        Query latest = new Query(Criteria.where("instanceId").is(instanceId))
+            .with(Sort.by(Sort.Direction.DESC, "seq"))
+            .limit(1);
+        GameSnapshot snapshot = mongoOperations.findOne(latest, GameSnapshot.class);
+
+        Game game;
+        List<GameEvent> events;
+        if (snapshot != null) {
+            game = snapshot.toGame();
+            events = eventsAfter(instanceId, game.getEventSeq());
+        } else {
+            events = eventsAfter(instanceId, 0);
+            if (events.isEmpty()) {
+                return Optional.empty();
+            }
+            game = new Game();
+            game.setId(events.get(0).getGameId());
+            game.setInstanceId(instanceId);
+        }
+        for (GameEvent event : events) {
+            apply(game, event);
+        }
+        return Optional.of(game);
+    }
+
+    public List<GameEvent> getEvents(String instanceId) {
+        flush();
+        return eventsAfter(instanceId, 0);
+    }
+
+    /**
+     * Removes the log and snapshots of the game instance, called when the game is deleted.
+     */
+    public void remove(String instanceId) {
+        flush();
+        Query query = new Query(Criteria.where("instanceId").is(instanceId));
+        mongoOperations.remove(query, GameEvent.class);
+        mongoOperations.remove(query, GameSnapshot.class);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    static void apply(Game game, GameEvent event) {
+        switch (event.getType()) {
+            case BOARD_CREATED:
+                List<String> words = new ArrayList<>(event.getWords());
+                game.setStartingTeam(event.getTeam());
+                game.setGameMode(event.getGameMode());
+                game.setLanguage(event.getLanguage());
+                game.setTurnDuration(event.getTurnDuration());
+                game.setStatus("playing");
+                game.setWords(words);
+                game.setBoardSeed(event.getBoardSeed());
+                break;
+            case HINT:
+                game.setCurrentHint(event.getHint(), event.getWordCount());
+                break;
+            case GUESS:
+                BoardKernel board = game.getKernel();
+                board.markGuessed(event.getIndex());
+                if (event.getNextTeam() != event.getTeam()) {
+                    board.clearSelection();
+                }
+                game.setGuessedInHint(event.getGuessedInHint());
+                game.setStatus(event.getStatus());
+                game.setWinningTeam(event.getWinningTeam());
+                break;
+            case TURN_END:
+            case TIMER_EXPIRED:
+                game.getKernel().clearSelection();
+                game.setGuessedInHint(event.getGuessedInHint());
+                break;
+            default:
+                break;
+        }
+        if (event.getNextTeam() != null) {
+            game.setTeamTurn(event.getNextTeam());
+        }
+        game.setEventSeq(event.getSeq());
+    }
+
+    static String newInstanceId() {
+        return UUID.randomUUID().toString();
+    }
+
+    private List<GameEvent> eventsAfter(String instanceId, long seq) {
+        Query query = new Query(Criteria.where("instanceId").is(instanceId).and("seq").gt(seq))
+            .with(Sort.by(Sort.Direction.ASC, "seq"));
+        return mongoOperations.find(query, GameEvent.class);
+    }
+
+    private <T> void insert(Queue<T> pending, Class<T> type) {
+        List<T> batch = new ArrayList<>();
+        T next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            mongoOperations.insert(batch, type);
+        } catch (Exception e) {
+            // part of the batch may have been written, save() is idempotent on the id
+            log.warn("Failed to insert {} {} entries, writing them one by one: {}", batch.size(), type.getSimpleName(), e.getMessage());
+            for (T entry : batch) {
+                try {
+                    mongoOperations.save(entry);
+                } catch (Exception retryFailed) {
+                    pending.add(entry);
+                }
+            }
+        }
+    }
+}
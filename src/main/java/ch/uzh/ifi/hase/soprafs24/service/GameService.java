@@ -1,74 +1,119 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
 import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
 import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
 import ch.uzh.ifi.hase.soprafs24.constant.PlayerRole;
 import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+import ch.uzh.ifi.hase.soprafs24.entity.BoardKernel;
 import ch.uzh.ifi.hase.soprafs24.entity.Card;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
 import ch.uzh.ifi.hase.soprafs24.entity.Lobby;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.entity.Team;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
-import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.LobbyRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.PlayerRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.SelectWordDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.makeGuessDTO;
+import ch.uzh.ifi.hase.soprafs24.websocket.dto.BoardDeltaDTO;
+import ch.uzh.ifi.hase.soprafs24.websocket.dto.BoardSnapshotDTO;
+import ch.uzh.ifi.hase.soprafs24.websocket.dto.CardChangeDTO;
 
 @Service
 @Transactional
 public class GameService {
   
+    private static final long SELECTION_BROADCAST_DELAY_MS = 100;
+    // abandoned games are removed after this time without a move
+    static final Duration GAME_TIMEOUT = Duration.ofHours(2);
+    // the expiry of a game and its lobby is pushed forward at most this often
+    static final Duration EXPIRY_REFRESH_INTERVAL = Duration.ofMinutes(5);
+    // finished games are kept a little so clients can still load the final board
+    static final Duration GAME_DELETION_DELAY = Duration.ofSeconds(3);
+    // overdue turns ended at once when the timers are recovered after a restart
+    static final int RECOVERY_BATCH_SIZE = 16;
+
     private final Logger log = LoggerFactory.getLogger(GameService.class);
-    private final WordGenerationService wordGenerationService;
-    private final GameRepository gameRepository;
+    private final BoardPreparer boardPreparer;
+    private final GameStateStore gameStateStore;
+    private final GameCommandMailbox mailbox;
+    private final GameEventLog gameEventLog;
     private final PlayerRepository playerRepository;
     private final UserRepository userRepository;
     private final LobbyRepository lobbyRepository;
     private final LobbyService lobbyService;
     private final WebsocketService websocketService;
-    private final Map<Long, Object> locks = new ConcurrentHashMap<>();
-    private final Map<Long, Timer> turnTimers = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final TurnTimerService turnTimerService;
+    private final SingleFlight<Long, Game> startingGames = new SingleFlight<>();
+    private final Map<Long, TurnTimerService.Timeout> turnTimers = new ConcurrentHashMap<>();
+    private final Map<Long, BoardViews> boardViews = new ConcurrentHashMap<>();
+    private final Set<Long> pendingSelectionBroadcasts = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random = new Random();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-selection-broadcaster");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public GameService(
-            WordGenerationService wordGenerationService,
-            GameRepository gameRepository,
+            BoardPreparer boardPreparer,
+            GameStateStore gameStateStore,
+            GameCommandMailbox mailbox,
+            GameEventLog gameEventLog,
             PlayerRepository playerRepository,
             UserRepository userRepository,
             LobbyRepository lobbyRepository,
             LobbyService lobbyService,
-            WebsocketService websocketService
+            WebsocketService websocketService,
+            TurnTimerService turnTimerService
     ) {
-        this.wordGenerationService = wordGenerationService;
-        this.gameRepository = gameRepository;
+        this.boardPreparer = boardPreparer;
+        this.gameStateStore = gameStateStore;
+        this.mailbox = mailbox;
+        this.gameEventLog = gameEventLog;
         this.playerRepository = playerRepository;
         this.userRepository = userRepository;
         this.lobbyRepository = lobbyRepository;
         this.lobbyService = lobbyService;
         this.websocketService = websocketService;
+        this.turnTimerService = turnTimerService;
     }
 
     public void checkIfUserSpymaster(User user) {
@@ -85,91 +130,202 @@ public class GameService {
         if (wordCount == null || wordCount < 1) {
         throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Word count must be at least 1");
         }
-        Game game = gameRepository.findById(gameId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-        
-        // Check if the hint matches any word on the board
-        List<Card> board = game.getBoard();
-        for (Card card : board) {
-            if (card.getWord().equalsIgnoreCase(hint)) {
+        if (wordCount > BoardPreparer.BOARD_SIZE) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Word count cannot be larger than the board");
+        }
+        mailbox.run(gameId, () -> {
+            Game game = loadGame(gameId);
+
+            // the index is built once per game, the hint may not be a board word or a form of one
+            if (game.getHintIndex().matches(hint)) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Hint cannot be the same as a word on the board");
             }
-        }
-        
-        
-        
-        game.setCurrentHint(hint, wordCount);
-        game.setGuessedInHint(0); //reset guessed words for the new hint
-        gameRepository.save(game);        
+
+            game.setCurrentHint(hint, wordCount);
+            game.setGuessedInHint(0); //reset guessed words for the new hint
+            gameEventLog.append(game, GameEvent.hint(game.getTeamTurn(), hint, wordCount));
+            keepAlive(game);
+            gameStateStore.markDirty(game);
+            publishBoardUpdate(gameId);
+        });
     }
 
     public Game startOrGetGame(Long id, TeamColor startingTeam, GameMode gameMode) {
+        try {
+            return startOrGetGameAsync(id, startingTeam, gameMode).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the game, creating it if it does not exist yet. The words are fetched without blocking the
+     * calling thread, concurrent calls for the same id share one creation.
+     */
+    public CompletableFuture<Game> startOrGetGameAsync(Long id, TeamColor startingTeam, GameMode gameMode) {
         //first check if game already present 
-        Optional<Game> optionalGame = gameRepository.findById(id);
+        Optional<Game> optionalGame = gameStateStore.find(id);
         if (optionalGame.isPresent()){
-            return optionalGame.get();
+            return CompletableFuture.completedFuture(optionalGame.get());
         } 
 
-        //per-id lock to avoid race conditions 
-        Object lock = locks.computeIfAbsent(id, k -> new Object()); 
-        synchronized (lock) {
-            try {
-                //again check if game was created while waiting 
-                optionalGame = gameRepository.findById(id);
-                if (optionalGame.isPresent()) {
-                    return optionalGame.get();
-                }
-                Lobby lobby = lobbyRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lobby not found"));
-                String theme = lobby.getTheme(); 
-                GameLanguage language = lobby.getLanguage();
-                Integer turnDuration = lobby.getTurnDuration();
+        //one creation per id to avoid race conditions 
+        return startingGames.run(id, () -> createGame(id, startingTeam, gameMode));
+    }
 
-                GameMode actualMode = lobby.getGameMode();
+    /**
+     * Like {@link #startOrGetGameAsync}, but completes with the view of the game for the given role.
+     */
+    public CompletableFuture<GameGetDTO> startOrGetGameViewAsync(Long id, TeamColor startingTeam, GameMode gameMode, boolean spymaster) {
+        return startOrGetGameAsync(id, startingTeam, gameMode)
+            .thenCompose(started -> mailbox.submit(id, () -> gameView(loadGame(id), spymaster)));
+    }
 
-                if (theme != null && !theme.equalsIgnoreCase("default") && actualMode != GameMode.THEME) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Theme provided but game mode is not THEME");
-                }
+    private GameGetDTO gameView(Game game, boolean spymaster) {
+        GameGetDTO view = new GameGetDTO();
+        view.setId(game.getId());
+        view.setStartingTeam(game.getStartingTeam());
+        view.setTeamTurn(game.getTeamTurn());
+        view.setStatus(game.getStatus());
+        view.setWinningTeam(game.getWinningTeam());
+        view.setGameMode(game.getGameMode());
+        view.setTurnDuration(game.getTurnDuration());
+        view.setBoard(boardViews(game).cardsFor(spymaster));
+        return view;
+    }
 
-                Game game = new Game();
-                game.setId(id);
-                game.setStartingTeam(startingTeam);
-                game.setTeamTurn(startingTeam); 
-                game.setStatus("playing");
-                game.setWinningTeam(null);
-                game.setGameMode(gameMode);
-                game.setTurnDuration(turnDuration);
+    private CompletableFuture<Game> createGame(Long id, TeamColor startingTeam, GameMode gameMode) {
+        //again check if game was created while waiting 
+        Optional<Game> optionalGame = gameStateStore.find(id);
+        if (optionalGame.isPresent()) {
+            return CompletableFuture.completedFuture(optionalGame.get());
+        }
+        Lobby lobby = lobbyRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lobby not found"));
+        String theme = lobby.getTheme(); 
+        GameLanguage language = lobby.getLanguage();
+        Integer turnDuration = lobby.getTurnDuration();
 
-                try {
-                    List <String> words = generateWords(game, theme, language); 
-                    game.setWords(words);
-        
-                    List <Card> board = assignColorsToWords(words, startingTeam);
-                    game.setBoard(board);
-        
-                    gameRepository.save(game);
-                    setTurnTimerIfNeeded(game); 
-                    return game; 
+        GameMode actualMode = lobby.getGameMode();
+
+        if (theme != null && !theme.equalsIgnoreCase("default") && actualMode != GameMode.THEME) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Theme provided but game mode is not THEME");
+        }
+
+        Game game = new Game();
+        game.setId(id);
+        game.setInstanceId(GameEventLog.newInstanceId());
+        game.setStartingTeam(startingTeam);
+        game.setTeamTurn(startingTeam); 
+        game.setStatus("playing");
+        game.setWinningTeam(null);
+        game.setGameMode(gameMode);
+        game.setLanguage(language);
+        game.setTurnDuration(turnDuration);
+        game.setExpiresAt(Instant.now().plus(GAME_TIMEOUT));
+
+        CompletableFuture<List<String>> generated;
+        try {
+            generated = generateWordsAsync(game, theme, language);
+        } catch (RuntimeException e) {
+            generated = CompletableFuture.failedFuture(e);
+        }
+        return generated.thenApply(words -> {
+            game.setWords(words);
+            // only the seed is stored, the cards are derived from it
+            long seed = random.nextLong();
+            game.setBoardSeed(seed);
+            gameEventLog.append(game, GameEvent.boardCreated(seed, new ArrayList<>(words), startingTeam, gameMode, language, turnDuration));
+            setTurnTimerIfNeeded(game);
+
+            gameStateStore.create(game);
+            return game; 
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            stopTurnTimer(id);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to create a new game: " + cause.getMessage(), cause);
+        });
+    }
 
-                } catch (Exception e) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to create a new game: " + e.getMessage(), e);
+    /**
+     * Returns copies of the cards with all colors, the cards of the game are only touched in its mailbox.
+     */
+    public List<Card> getBoard(Long id) {
+        return mailbox.call(id, () -> boardViews(loadGame(id)).cardsFor(true));
+    }
+
+    /**
+     * Sends the cards changed since the last board message to /topic/game/{id}/board, nothing is sent if neither
+     * a card nor the number of guesses left changed.
+     * Runs in the mailbox of the game, so messages leave in the order of their sequence numbers.
+     */
+    public void publishBoardUpdate(Long id) {
+        mailbox.run(id, () -> {
+            Game game = loadGame(id);
+            BoardKernel board = game.getKernel();
+            int changed = board.getUnpublishedMask();
+            Integer guessesLeft = guessesLeft(game);
+            if (changed == 0 && Objects.equals(guessesLeft, game.getPublishedGuessesLeft())) {
+                return;
+            }
+            List<CardChangeDTO> changes = new ArrayList<>(Integer.bitCount(changed));
+            for (int i = 0; i < board.size(); i++) {
+                if ((changed & (1 << i)) != 0) {
+                    boolean guessed = board.isGuessed(i);
+                    changes.add(new CardChangeDTO(i, guessed, board.isSelected(i), guessed ? board.colorAt(i) : null));
                 }
-            } finally {
-                locks.remove(id); 
             }
+            board.markPublished();
+            game.setPublishedGuessesLeft(guessesLeft);
+            long seq = game.nextBoardSeq();
+
+            websocketService.sendMessage("/topic/game/" + id + "/board", new BoardDeltaDTO(seq, changes, guessesLeft));
+        });
+    }
+
+    /**
+     * Returns the board as JSON for the given role. Field operatives only see the colors of guessed cards.
+     */
+    public byte[] getBoardJson(Long id, boolean spymaster) {
+        return mailbox.call(id, () -> boardViews(loadGame(id)).board(spymaster));
+    }
+
+    /**
+     * Returns the board snapshot as JSON for the given role, together with the sequence number of the last board message.
+     */
+    public byte[] getBoardSnapshotJson(Long id, boolean spymaster) {
+        return mailbox.call(id, () -> boardViews(loadGame(id)).snapshot(spymaster));
+    }
+
+    /**
+     * True if the user is a spymaster of one of the teams of the lobby that plays the game.
+     */
+    public boolean isSpymaster(User user, Long gameId) {
+        Optional<Long> teamId = playerRepository.findById(user.getId())
+            .filter(player -> player.getRole() == PlayerRole.SPYMASTER && player.getTeam() != null)
+            .map(player -> player.getTeam().getId());
+        if (teamId.isEmpty()) {
+            return false;
         }
+        return lobbyRepository.findById(gameId)
+            .map(lobby -> isTeam(lobby.getRedTeam(), teamId.get()) || isTeam(lobby.getBlueTeam(), teamId.get()))
+            .orElse(false);
     }
 
-    public List<Card> getBoard(Long id) {
-        Game game = gameRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-        return game.getBoard();
+    private static boolean isTeam(Team team, Long teamId) {
+        return team != null && teamId.equals(team.getId());
     }
 
     /*
      * Returns a tuple with a bool which indicates if the game is over and a TeamColor which team has either won or whose turn it is next.
     */
     public Map.Entry<Boolean, TeamColor> makeGuess(Long id, TeamColor teamColor, String wordStr, User user) {
-        Game game = gameRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+        return mailbox.call(id, () -> applyGuess(loadGame(id), teamColor, wordStr, user));
+    }
+
+    private Map.Entry<Boolean, TeamColor> applyGuess(Game game, TeamColor teamColor, String wordStr, User user) {
         if (game.getTeamTurn() != teamColor) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "It's not your turn");
         }
@@ -183,53 +339,42 @@ public class GameService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is already finished");
         }
         Map.Entry<Boolean, TeamColor> result;
-        Card word = findWord(game.getBoard(), wordStr);
+        BoardKernel board = game.getKernel();
+        int index = findWord(board, wordStr);
+        CardColor color = board.colorAt(index);
+        CardColor teamCardColor = teamColor == TeamColor.RED ? CardColor.RED : CardColor.BLUE;
         var opponentTeam = teamColor == TeamColor.RED ? TeamColor.BLUE : TeamColor.RED;
         boolean scheduleTimer = false;
 
+        board.markGuessed(index);
+
         // Black card guess
-        if (word.getColor() == CardColor.BLACK) {
-            word.setGuessed(true);
+        if (color == CardColor.BLACK) {
             game.setWinningTeam(opponentTeam);
             game.setStatus("finished");
             resetLobbyGameStarted(game.getId()); //reset gameStarted state in loby 
             user.addBlackCardGuess();
             userRepository.save(user);
             result = Map.entry(true, opponentTeam);
-            scheduleGameDeletion(game.getId()); //delete game 
+            scheduleGameDeletion(game); //delete game 
         } 
         // Neutral card guess
-        else if (word.getColor() == CardColor.NEUTRAL) {
-            word.setGuessed(true);
-
-            // Clear temp word selection 
-            for (Card card : game.getBoard()) {
-                card.setSelected(false);
-            }
-
+        else if (color == CardColor.NEUTRAL) {
+            board.clearSelection(); // Clear temp word selection 
             game.setTeamTurn(opponentTeam);
             scheduleTimer = true;
             result = Map.entry(false, opponentTeam);
         } 
         // Enemy card guess
-        else if (word.getColor().name() != teamColor.name()) {
-            word.setGuessed(true);
-
-            // Clear temp word selection 
-            for (Card card : game.getBoard()) {
-                card.setSelected(false);
-            }
-
+        else if (color != teamCardColor) {
+            board.clearSelection(); // Clear temp word selection 
             game.setTeamTurn(opponentTeam);
-            Long leftToGuess = game.getBoard().stream()
-                .filter(card -> card.getColor() == word.getColor() && !card.isGuessed())
-                .count();
-            if (leftToGuess == 0) {
+            if (board.remaining(color) == 0) {
                 game.setWinningTeam(opponentTeam);
                 game.setStatus("finished");
                 resetLobbyGameStarted(game.getId()); //reset gameStarted state in loby 
                 result = Map.entry(true, opponentTeam);
-                scheduleGameDeletion(game.getId()); //delete game 
+                scheduleGameDeletion(game); //delete game 
             } else {
                 scheduleTimer = true;
                 result = Map.entry(false, opponentTeam);
@@ -237,36 +382,31 @@ public class GameService {
         }
         // Correct card guess
         else {
-          word.setGuessed(true);
           game.addGuessedInHint();
-          Long leftToGuess = game.getBoard().stream()
-              .filter(card -> card.getColor() == word.getColor() && !card.isGuessed())
-              .count();
-          if (leftToGuess == 0) {
+          if (board.remaining(color) == 0) {
               game.setWinningTeam(teamColor);
               game.setStatus("finished");
               resetLobbyGameStarted(game.getId()); //reset gameStarted state in loby 
               result = Map.entry(true, teamColor);
-              scheduleGameDeletion(game.getId()); //delete game 
+              scheduleGameDeletion(game); //delete game 
+          } else if (game.getGuessedInHint() >= game.getCurrentHint().getValue()) {
+              board.clearSelection(); // Clear temp word selection 
+              game.setTeamTurn(opponentTeam);
+              scheduleTimer = true;
+              result = Map.entry(false, opponentTeam);
           } else {
-              if (game.getGuessedInHint() >= game.getCurrentHint().getValue()) {
-
-                // Clear temp word selection 
-                for (Card card : game.getBoard()) {
-                    card.setSelected(false);
-                }
-
-                  game.setTeamTurn(opponentTeam);
-                  scheduleTimer = true;
-                  result = Map.entry(false, opponentTeam);
-              }
-              else
-                result = Map.entry(false,  teamColor);
+              result = Map.entry(false,  teamColor);
           }
         }
-        gameRepository.save(game);
+        gameEventLog.append(game, GameEvent.guess(game, teamColor, BoardKernel.normalize(wordStr), index));
+        keepAlive(game);
         if (scheduleTimer)
             setTurnTimerIfNeeded(game);
+        if (Boolean.TRUE.equals(result.getKey())) {
+            gameStateStore.flush(game.getId()); //game end is written right away
+        } else {
+            gameStateStore.markDirty(game);
+        }
         return result;
     }
 
@@ -286,91 +426,71 @@ public class GameService {
         }
     }
 
-    public void scheduleGameDeletion(Long gameId) {
-        scheduler.schedule(() -> {
-            try {
-                stopTurnTimer(gameId);
-                gameRepository.deleteById(gameId);
-                System.out.println("Game with ID " + gameId + " has been deleted after game end.");
-            } catch (Exception e) {
-                System.err.println("Failed to delete game with ID " + gameId + ": " + e.getMessage());
-            }
-        }, 3, TimeUnit.SECONDS); // Delay of 3 seconds
+    /**
+     * Lets the game expire shortly, the {@link ExpirySweeper} then archives and removes it.
+     */
+    public void scheduleGameDeletion(Game game) {
+        game.setExpiresAt(Instant.now().plus(GAME_DELETION_DELAY));
     }
 
-    /////////////////////// helper methods: ///////////////////////
-    private List<Card> assignColorsToWords(List<String> words, TeamColor startingTeam) {
-
-        Collections.shuffle(words);
-
-        List<Card> board = new ArrayList<>();
-
-        CardColor startingColor = (startingTeam == TeamColor.RED) ? CardColor.RED : CardColor.BLUE; //if true assign red to starting color and other color = blue
-        CardColor otherColor = (startingColor == CardColor.RED) ? CardColor.BLUE : CardColor.RED; //if starting color = red then other = blue, if starting color = blue then other = red 
-
-        int index = 0;
-
-        // 9 cards to starting team
-        for (int i = 0; i < 9; i++) {
-            board.add(new Card(words.get(index++), startingColor));
+    /**
+     * Pushes the expiry of a running game and its lobby forward after a move, a timed out turn does not count.
+     * Refreshed at most every {@link #EXPIRY_REFRESH_INTERVAL}. Must be called in the mailbox of the game.
+     *
+     * @return true if the expiry of the game changed and has to be written
+     */
+    private boolean keepAlive(Game game) {
+        if ("finished".equals(game.getStatus())) {
+            return false; //finished games keep their deletion deadline
         }
-        // 8 cards to the other team
-        for (int i = 0; i < 8; i++) {
-            board.add(new Card(words.get(index++), otherColor));
+        Instant expiresAt = Instant.now().plus(GAME_TIMEOUT);
+        if (game.getExpiresAt() != null && game.getExpiresAt().isAfter(expiresAt.minus(EXPIRY_REFRESH_INTERVAL))) {
+            return false;
         }
-        // 7 neutral cards
-        for (int i = 0; i < 7; i++) {
-            board.add(new Card(words.get(index++), CardColor.NEUTRAL));
-        }
-        // 1 black card
-        board.add(new Card(words.get(index), CardColor.BLACK));
-
-        Collections.shuffle(board);
+        game.setExpiresAt(expiresAt);
+        lobbyService.extendStartedLobby(game.getId());
+        return true;
+    }
 
-        return board;
-        }
+    /**
+     * Removes the game and everything kept in memory for it.
+     */
+    public void deleteGame(Long gameId) {
+        stopTurnTimer(gameId);
+        boardViews.remove(gameId);
+        gameStateStore.delete(gameId);
+        log.info("Game with ID {} has been deleted", gameId);
+    }
 
+    /////////////////////// helper methods: ///////////////////////
     public List<String> generateWords(Game game, String theme, GameLanguage language){
+        return generateWordsAsync(game, theme, language).join();
+    }
+
+    public CompletableFuture<List<String>> generateWordsAsync(Game game, String theme, GameLanguage language){
         if (game.getWords() != null && !game.getWords().isEmpty()){
-            return game.getWords(); 
+            return CompletableFuture.completedFuture(game.getWords()); 
         }
 
         Lobby lobby = lobbyRepository.findById(game.getId()).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lobby not found"));
-        List<String> finalWords = new ArrayList<>();
-        
-        if (lobby.getCustomWords() != null && lobby.getGameMode() == GameMode.OWN_WORDS) { 
-          for (String word : lobby.getCustomWords()){
-            String upper = word.toUpperCase();
-            if (!finalWords.contains(upper)){
-                finalWords.add(upper); 
-            }
-          }
-        }
-        int needed = 25 - finalWords.size(); 
-        if(needed > 0) {
-            List<String> additional = theme == null || theme.equalsIgnoreCase("default") ?
-            wordGenerationService.getWordsFromApi(language) : wordGenerationService.getWordsFromApi(theme, language); //if theme is missing or default call getWordsFromApi() else getWordsFromApi(theme)
-
-            for (String w : additional){
-              String upper = w.toUpperCase();
-              if (!finalWords.contains(upper)){
-                finalWords.add(upper);
-                if (finalWords.size() == 25) break;
-              }
-              
-            }
-        }
-        game.setWords(finalWords);
-        return finalWords;
+        // usually prepared while the lobby filled up
+        return boardPreparer.takeOrGenerateAsync(lobby, theme, language).thenApply(finalWords -> {
+            game.setWords(finalWords);
+            return finalWords;
+        });
     }
 
-    private Card findWord(List<Card> words, String word) {
-        for (Card card : words) {
-          if (card.getWord().equalsIgnoreCase(word)) {
-              return card;
-            }
+    private Game loadGame(Long gameId) {
+        return gameStateStore.find(gameId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+    }
+
+    private int findWord(BoardKernel board, String word) {
+        int index = board.indexOf(word);
+        if (index < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Word not found in the game board");
         }
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Word not found in the game board");
+        return index;
     }
 
     private void resetLobbyGameStarted(Long gameId) {
@@ -396,63 +516,175 @@ public class GameService {
             playerRepository.save(player);
         }
     }
-    public int getRemainingGuesses(Long gameId) {
-        Game game = gameRepository.findById(gameId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+    /**
+     * Returns the serialized views of the board, rebuilt only if the board changed since they were created.
+     * Must be called in the mailbox of the game.
+     */
+    private BoardViews boardViews(Game game) {
+        BoardViews views = boardViews.get(game.getId());
+        if (views == null || !views.isCurrent(game)) {
+            views = new BoardViews(game);
+            boardViews.put(game.getId(), views);
+        }
+        return views;
+    }
 
-        if (game.getCurrentHint() == null) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No hint has been given yet");
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to serialize board", e);
+        }
+    }
+
+    /**
+     * Serialized board and snapshot per role for one state of the board. Each payload is
+     * serialized at most once and then shared by all subscribers and REST calls.
+     */
+    private final class BoardViews {
+
+        private final int guessedMask;
+        private final int selectedMask;
+        private final long seq;
+        private final Integer guessesLeft;
+        private final List<Card> cards;
+        private final byte[][] boards = new byte[2][];
+        private final byte[][] snapshots = new byte[2][];
+
+        private BoardViews(Game game) {
+            BoardKernel board = game.getKernel();
+            this.guessedMask = board.getGuessedMask();
+            this.selectedMask = board.getSelectedMask();
+            this.seq = game.getBoardSeq();
+            this.guessesLeft = guessesLeft(game);
+            this.cards = game.getBoard();
+        }
+
+        private boolean isCurrent(Game game) {
+            BoardKernel board = game.getKernel();
+            return board.getGuessedMask() == guessedMask
+                && board.getSelectedMask() == selectedMask
+                && game.getBoardSeq() == seq
+                && Objects.equals(guessesLeft(game), guessesLeft);
+        }
+
+        private byte[] board(boolean spymaster) {
+            int role = spymaster ? 1 : 0;
+            if (boards[role] == null) {
+                boards[role] = toJson(cardsFor(spymaster));
+            }
+            return boards[role];
+        }
+
+        private byte[] snapshot(boolean spymaster) {
+            int role = spymaster ? 1 : 0;
+            if (snapshots[role] == null) {
+                snapshots[role] = toJson(new BoardSnapshotDTO(seq, cardsFor(spymaster), guessesLeft));
+            }
+            return snapshots[role];
+        }
+
+        private List<Card> cardsFor(boolean spymaster) {
+            List<Card> view = new ArrayList<>(cards.size());
+            for (Card card : cards) {
+                Card copy = new Card(card.getWord(), spymaster || card.isGuessed() ? card.getColor() : null);
+                copy.setGuessed(card.isGuessed());
+                copy.setSelected(card.isSelected());
+                view.add(copy);
+            }
+            return view;
         }
+    }
 
+    private Integer guessesLeft(Game game) {
+        if (game.getCurrentHint() == null) {
+            return null;
+        }
         return game.getCurrentHint().getValue() - game.getGuessedInHint();
     }
+
+    public int getRemainingGuesses(Long gameId) {
+        return mailbox.call(gameId, () -> {
+            Game game = loadGame(gameId);
+
+            if (game.getCurrentHint() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No hint has been given yet");
+            }
+
+            return game.getCurrentHint().getValue() - game.getGuessedInHint();
+        });
+    }
     public void endTurn(Long gameId, User user) {
-        Game game = gameRepository.findById(gameId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-    
         // Ensure the user is part of the game
-        Player player = playerRepository.findById(user.getId())
+        playerRepository.findById(user.getId())
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Player not found"));
         
-    
-        // Switch the turn to the opposing team
-        TeamColor currentTeam = game.getTeamTurn();
-        TeamColor nextTeam = (currentTeam == TeamColor.RED) ? TeamColor.BLUE : TeamColor.RED;
-        game.setTeamTurn(nextTeam);
-    
-        // Reset guesses left to the number of words in the current hint
-        if (game.getCurrentHint() != null) {
-            game.setGuessedInHint(0); // Reset guessed words
-        }
+        mailbox.run(gameId, () -> {
+            Game game = loadGame(gameId);
 
-        // Clear temp selection 
-        for (Card card : game.getBoard()) {
-            card.setSelected(false);
-        }
-    
-        gameRepository.save(game);
+            // Switch the turn to the opposing team
+            TeamColor currentTeam = game.getTeamTurn();
+            TeamColor nextTeam = (currentTeam == TeamColor.RED) ? TeamColor.BLUE : TeamColor.RED;
+            game.setTeamTurn(nextTeam);
 
-        setTurnTimerIfNeeded(game);
+            // Reset guesses left to the number of words in the current hint
+            if (game.getCurrentHint() != null) {
+                game.setGuessedInHint(0); // Reset guessed words
+            }
+
+            // Clear temp selection 
+            game.getKernel().clearSelection();
+
+            gameEventLog.append(game, GameEvent.turnChange(GameEventType.TURN_END, currentTeam, game));
+            keepAlive(game);
+            setTurnTimerIfNeeded(game);
+            gameStateStore.markDirty(game);
+            publishBoardUpdate(gameId);
+        });
     }
 
     public Game getGameById(Long gameId) {
-        return gameRepository.findById(gameId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+        return mailbox.call(gameId, () -> loadGame(gameId));
     }
 
     public void selectWord(Long gameId, SelectWordDTO selectWordDTO) {
-        // get game
-        Game game = gameRepository.findById(gameId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-    
-        // get card 
-        Card selectedCard = findWord(game.getBoard(), selectWordDTO.getWordStr());
-        
-        // update selection state of card 
-        selectedCard.setSelected(selectWordDTO.isSelected()); 
-    
-        // save updated game 
-        gameRepository.save(game);
+        mailbox.run(gameId, () -> {
+            // get game
+            Game game = loadGame(gameId);
+
+            // get card 
+            BoardKernel board = game.getKernel();
+            int index = findWord(board, selectWordDTO.getWordStr());
+
+            // update selection state of card, selection is temporary and only kept in memory
+            board.setSelected(index, selectWordDTO.isSelected()); 
+            if (keepAlive(game)) {
+                gameStateStore.markDirty(game);
+            }
+        });
+        scheduleSelectionBroadcast(gameId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Selections within a short window are sent as one board message.
+     */
+    private void scheduleSelectionBroadcast(Long gameId) {
+        if (!pendingSelectionBroadcasts.add(gameId)) {
+            return; // already scheduled, the pending message will include this selection
+        }
+        scheduler.schedule(() -> {
+            pendingSelectionBroadcasts.remove(gameId);
+            try {
+                publishBoardUpdate(gameId);
+            } catch (Exception e) {
+                log.warn("Failed to send selection update for game {}: {}", gameId, e.getMessage());
+            }
+        }, SELECTION_BROADCAST_DELAY_MS, TimeUnit.MILLISECONDS);
     }
 
     //private Card findCardByWord(List<Card> board, String word) {
@@ -475,52 +707,114 @@ public class GameService {
         }
     }
 
+    /**
+     * Starts the turn timer of a timed game. The deadline is stored in the game, so the timer can be
+     * re-armed after a restart. Callers write the game afterwards.
+     */
     private void setTurnTimerIfNeeded(Game game) {
         if (game.getGameMode() != GameMode.TIMED)
            return;
-        
-        stopTurnTimer(game.getId());
-        
-        Timer timer = new Timer();
-        turnTimers.put(game.getId(), timer);
-        
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    stopTurnTimer(game.getId());
 
-                    //get latest game data
-                    Game latestGame = gameRepository.findById(game.getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+        Instant deadline = Instant.now().plusSeconds(game.getTurnDuration());
+        game.setTurnDeadline(deadline);
+        armTurnTimer(game.getId(), deadline);
+    }
 
-                    TeamColor currentTurn = latestGame.getTeamTurn();
-                    TeamColor nextTurn = currentTurn == TeamColor.RED ? TeamColor.BLUE : TeamColor.RED;
+    private void armTurnTimer(Long gameId, Instant deadline) {
+        long delayMs = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+        TurnTimerService.Timeout timeout = turnTimerService.schedule(
+            expired -> mailbox.submit(gameId, () -> onTurnTimeout(gameId, expired)),
+            delayMs, TimeUnit.MILLISECONDS);
+        TurnTimerService.Timeout previous = turnTimers.put(gameId, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
 
-                    latestGame.setTeamTurn(nextTurn);
+    /**
+     * Re-arms the turn timers of running timed games after a restart. Turns that ran out while the
+     * server was down end in batches of {@value #RECOVERY_BATCH_SIZE}, so the mailboxes are not flooded at startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverTurnTimers() {
+        List<Game> games = gameStateStore.findRunningTimedGames();
+        Instant now = Instant.now();
+        List<Long> overdue = new ArrayList<>();
+        for (Game game : games) {
+            Instant deadline = game.getTurnDeadline();
+            if (deadline == null) {
+                // started before deadlines were stored, the current turn starts over
+                armTurnTimer(game.getId(), now.plusSeconds(game.getTurnDuration()));
+            } else if (deadline.isAfter(now)) {
+                armTurnTimer(game.getId(), deadline);
+            } else {
+                overdue.add(game.getId());
+            }
+        }
 
-                    for (Card card : latestGame.getBoard()) {
-                        card.setSelected(false);
+        for (int i = 0; i < overdue.size(); i += RECOVERY_BATCH_SIZE) {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            for (Long gameId : overdue.subList(i, Math.min(i + RECOVERY_BATCH_SIZE, overdue.size()))) {
+                batch.add(mailbox.submit(gameId, () -> {
+                    Game game = loadGame(gameId);
+                    // a player may have ended the turn in the meantime
+                    if (game.getTurnDeadline() != null && !game.getTurnDeadline().isAfter(Instant.now())) {
+                        expireTurn(game);
                     }
-                    
-                    gameRepository.save(latestGame);
+                    return null;
+                }));
+            }
+            for (CompletableFuture<Void> expiry : batch) {
+                try {
+                    expiry.join();
+                } catch (CompletionException e) {
+                    log.warn("Failed to end overdue turn: {}", e.getCause().getMessage());
+                }
+            }
+        }
+        if (!games.isEmpty()) {
+            log.info("Recovered turn timers of {} timed games, {} turns had run out", games.size(), overdue.size());
+        }
+    }
 
+    /**
+     * Called when the turn timer ran out. Runs in the mailbox of the game.
+     */
+    private Void onTurnTimeout(Long gameId, TurnTimerService.Timeout timeout) {
+        // the turn may have ended or the timer was restarted while the expiry was queued
+        if (!turnTimers.remove(gameId, timeout)) {
+            return null;
+        }
+        try {
+            expireTurn(loadGame(gameId));
+        } catch (Exception e) {
+            log.warn("Error in scheduled turn change for game {}: {}", gameId, e.getMessage());
+        }
+        return null;
+    }
 
-                    websocketService.sendMessage("/topic/game/" + game.getId() + "/guess", new makeGuessDTO(latestGame.getTeamTurn().name(), ""));
-                    // Set small delay to ensure that the timer is stopped before the next turn starts
-                    Thread.sleep(500);
-                    setTurnTimerIfNeeded(latestGame);
-                } catch (Exception e) {
-                    log.warn("Error in scheduled turn change for game {}: {}", game.getId(), e.getMessage());
-                } 
-            }
-        }, game.getTurnDuration() * 1000);
+    private void expireTurn(Game game) {
+        if ("finished".equals(game.getStatus())) {
+            return;
+        }
+        TeamColor currentTurn = game.getTeamTurn();
+        TeamColor nextTurn = currentTurn == TeamColor.RED ? TeamColor.BLUE : TeamColor.RED;
+
+        game.setTeamTurn(nextTurn);
+        game.getKernel().clearSelection();
+
+        gameEventLog.append(game, GameEvent.turnChange(GameEventType.TIMER_EXPIRED, currentTurn, game));
+        setTurnTimerIfNeeded(game);
+        gameStateStore.markDirty(game);
+        publishBoardUpdate(game.getId());
+
+        websocketService.sendMessage("/topic/game/" + game.getId() + "/guess", new makeGuessDTO(nextTurn.name(), ""));
     }
 
     private void stopTurnTimer(Long gameId) {
-        Timer timer = turnTimers.remove(gameId);
-        if (timer != null) {
-            timer.cancel();
+        TurnTimerService.Timeout timeout = turnTimers.remove(gameId);
+        if (timeout != null) {
+            timeout.cancel();
         }
     }
-}
\ No newline at end of file
+}
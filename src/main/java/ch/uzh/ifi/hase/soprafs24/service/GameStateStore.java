@@ -0,0 +1,212 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+
+/**
+ * In-memory store for active games. Reads and mutations are served from memory,
+ * changes are written back to the database asynchronously. Several changes to the
+ * same game between two flushes result in a single write. Writes run in the mailbox of the game,
+ * so a game is never saved while a command is modifying it.
+ * Only the changed fields are written, guarded by the version, turn and status of the stored game. If another
+ * writer changed the game in the meantime, the cached changes are rejected and the game is reloaded on the
+ * next access.
+ */
+@Component
+public class GameStateStore {
+
+    private static final long FLUSH_INTERVAL_MS = 500;
+
+    private final Logger log = LoggerFactory.getLogger(GameStateStore.class);
+    private final GameRepository gameRepository;
+    private final GameCommandMailbox mailbox;
+    private final GameEventLog gameEventLog;
+    private final Map<Long, Game> games = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // last board message of evicted games, a reloaded game continues after it even if its changes were not written
+    private final Map<Long, Long> evictedBoardSeqs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    @Autowired
+    public GameStateStore(GameRepository gameRepository, GameCommandMailbox mailbox, GameEventLog gameEventLog) {
+        this(gameRepository, mailbox, gameEventLog, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-state-flusher");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    // tests pass a flusher that does not run, so writes only happen on an explicit flush
+    GameStateStore(GameRepository gameRepository, GameCommandMailbox mailbox, GameEventLog gameEventLog, ScheduledExecutorService flusher) {
+        this.gameRepository = gameRepository;
+        this.mailbox = mailbox;
+        this.gameEventLog = gameEventLog;
+        this.flusher = flusher;
+        flusher.scheduleWithFixedDelay(this::flushDirty, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the cached game or loads it from the database on a cache miss. Moves that are in the
+     * move log but not yet in the game document are replayed on load.
+     */
+    public Optional<Game> find(Long gameId) {
+        Game cached = games.get(gameId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Game> loaded = gameRepository.findById(gameId);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        Game game = loaded.get();
+        boolean recovered = gameEventLog.replayPending(game);
+        Long sent = evictedBoardSeqs.remove(gameId);
+        if (sent != null && sent > game.getBoardSeq()) {
+            game.continueBoardSeq(sent);
+            recovered = true;
+        }
+        Game previous = games.putIfAbsent(gameId, game);
+        if (previous != null) {
+            return Optional.of(previous);
+        }
+        if (recovered) {
+            dirty.add(gameId);
+        }
+        return Optional.of(game);
+    }
+
+    /**
+     * Returns the id, turn duration and turn deadline of all running timed games in the database.
+     */
+    public List<Game> findRunningTimedGames() {
+        return gameRepository.findRunningTimedGames();
+    }
+
+    /**
+     * Stores a newly created game. The first write is synchronous so the game survives a restart right away.
+     */
+    public Game create(Game game) {
+        Game saved = gameRepository.save(game);
+        saved.clearPendingChanges();
+        games.put(saved.getId(), saved);
+        return saved;
+    }
+
+    /**
+     * Marks the game as changed, it will be written on the next flush.
+     */
+    public void markDirty(Game game) {
+        games.putIfAbsent(game.getId(), game);
+        dirty.add(game.getId());
+    }
+
+    /**
+     * Writes the game synchronously, e.g. when the game has ended.
+     */
+    public void flush(Long gameId) {
+        mailbox.run(gameId, () -> {
+            dirty.remove(gameId);
+            Game game = games.get(gameId);
+            if (game != null) {
+                try {
+                    persist(game);
+                } catch (Exception e) {
+                    log.warn("Failed to write game {}, retrying on next flush: {}", gameId, e.getMessage());
+                    dirty.add(gameId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes all changed games and waits until the writes are done.
+     */
+    public void flushDirty() {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Long gameId : dirty) {
+            writes.add(mailbox.submit(gameId, () -> {
+                if (dirty.remove(gameId)) {
+                    Game game = games.get(gameId);
+                    if (game != null) {
+                        try {
+                            persist(game);
+                        } catch (Exception e) {
+                            log.warn("Failed to write game {}, retrying on next flush: {}", gameId, e.getMessage());
+                            dirty.add(gameId);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        writes.forEach(CompletableFuture::join);
+    }
+
+    /**
+     * Deletes the game together with its move log.
+     */
+    public void delete(Long gameId) {
+        mailbox.run(gameId, () -> {
+            Game game = games.get(gameId);
+            String instanceId = game != null
+                ? game.getInstanceId()
+                : gameRepository.findById(gameId).map(Game::getInstanceId).orElse(null);
+            evict(gameId);
+            evictedBoardSeqs.remove(gameId);
+            gameRepository.deleteById(gameId);
+            if (instanceId != null) {
+                gameEventLog.remove(instanceId);
+            }
+        });
+    }
+
+    public void evict(Long gameId) {
+        dirty.remove(gameId);
+        Game game = games.remove(gameId);
+        if (game != null) {
+            evictedBoardSeqs.merge(gameId, game.getBoardSeq(), Math::max);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushDirty();
+    }
+
+    private void persist(Game game) {
+        Map<String, Object> changes = game.getPendingChanges();
+        Map<String, Integer> increments = game.getPendingIncrements();
+        if (changes.isEmpty() && increments.isEmpty()) {
+            return;
+        }
+        if (gameRepository.applyChanges(game.getId(), game.getVersion(), game.getStoredTeamTurn(), game.getStoredStatus(),
+                changes, increments)) {
+            game.setVersion(game.getVersion() + 1);
+            game.clearPendingChanges();
+            return;
+        }
+        // the cached game is stale, its moves must not overwrite the moves of the other writer
+        log.warn("Game {} was changed by another writer, rejecting {} cached changes and reloading it", game.getId(),
+            changes.size() + increments.size());
+        evict(game.getId());
+    }
+}
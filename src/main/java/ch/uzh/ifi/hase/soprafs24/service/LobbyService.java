@@ -7,13 +7,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ConcurrentHashMap;
 
 import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
 import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
@@ -31,20 +28,26 @@ import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPlayersResponseDTO;
 @Transactional
 public class LobbyService {
 
+    // lobbies that do not start a game are closed after this time
+    static final Duration LOBBY_TIMEOUT = Duration.ofMinutes(10);
+    // lobbies of abandoned games are closed after this time without a move
+    static final Duration STARTED_LOBBY_TIMEOUT = Duration.ofHours(2);
+
     private final Logger log = LoggerFactory.getLogger(LobbyService.class);
     private final LobbyRepository lobbyRepository;
     private final PlayerRepository playerRepository;
     private final TeamRepository teamRepository;
     private final WebsocketService websocketService;
-    private final Map<Long, Timer> lobbyTimers = new ConcurrentHashMap<>();
     private final UserRepository userRepository; 
+    private final BoardPreparer boardPreparer;
 
-    public LobbyService(LobbyRepository lobbyRepository, PlayerRepository playerRepository, TeamRepository teamRepository, WebsocketService websocketService, UserRepository userRepository) {
+    public LobbyService(LobbyRepository lobbyRepository, PlayerRepository playerRepository, TeamRepository teamRepository, WebsocketService websocketService, UserRepository userRepository, BoardPreparer boardPreparer) {
         this.playerRepository = playerRepository;
         this.lobbyRepository = lobbyRepository;
         this.teamRepository = teamRepository;
         this.websocketService = websocketService;
         this.userRepository = userRepository;
+        this.boardPreparer = boardPreparer;
     }
 
     public Lobby getOrCreateLobby(Integer lobbyCode, boolean openForLostPlayers) {
@@ -80,24 +83,25 @@ public class LobbyService {
         lobby.setLobbyCode(generateLobbyCode());
         lobby.setOpenForLostPlayers(openForLostPlayers);
         lobby.setCreatedAt(Instant.now());
+        lobby.setExpiresAt(lobby.getCreatedAt().plus(LOBBY_TIMEOUT));
         lobby = lobbyRepository.save(lobby);
 
         Team redTeam = new Team();
         redTeam.setColor(TeamColor.RED);
         redTeam.setLobby(lobby);
+        redTeam.setExpiresAt(lobby.getExpiresAt());
         teamRepository.save(redTeam);
 
         Team blueTeam = new Team();
         blueTeam.setColor(TeamColor.BLUE);
         blueTeam.setLobby(lobby);
+        blueTeam.setExpiresAt(lobby.getExpiresAt());
         teamRepository.save(blueTeam);
 
         lobby.setRedTeam(redTeam);
         lobby.setBlueTeam(blueTeam);
         lobby.setTheme("default");
 
-        scheduleLobbyTimeout(lobby);
-
         return lobbyRepository.save(lobby);
     }
 
@@ -108,6 +112,7 @@ public class LobbyService {
             lobby.setTheme(null);
         }
         lobbyRepository.save(lobby);
+        boardPreparer.prepare(lobby);
         return lobby;
     }
 
@@ -120,13 +125,17 @@ public class LobbyService {
     public Lobby setTheme(Long id, String theme){
         Lobby lobby = getLobbyById(id);
         lobby.setTheme(theme.trim());
-        return lobbyRepository.save(lobby);
+        lobby = lobbyRepository.save(lobby);
+        boardPreparer.prepare(lobby);
+        return lobby;
     }
 
     public Lobby setLanguage(Long id, GameLanguage language) {
         Lobby lobby = getLobbyById(id);
         lobby.setLanguage(language);
-        return lobbyRepository.save(lobby);
+        lobby = lobbyRepository.save(lobby);
+        boardPreparer.prepare(lobby);
+        return lobby;
     }
 
     public Player addPlayerToLobby(Long lobbyId, Long playerId) {
@@ -157,10 +166,12 @@ public class LobbyService {
         }
 
         player.setReady(false);
+        player.setExpiresAt(lobby.getExpiresAt());
         playerRepository.save(player);
         lobby.addPlayer(player);
         teamRepository.save(assignedTeam);
         lobbyRepository.save(lobby);
+        boardPreparer.prepare(lobby);
 
         sendLobbyPlayerStatusUpdate(lobbyId);
 
@@ -205,8 +216,9 @@ public class LobbyService {
                 teamRepository.delete(updatedLobby.getBlueTeam());
             }
             lobbyRepository.delete(updatedLobby);
-            stopLobbyTimer(lobbyId); 
+            boardPreparer.invalidate(lobbyId);
         } else {
+            boardPreparer.prepare(updatedLobby);
             sendLobbyPlayerStatusUpdate(lobbyId);
         }
     }
@@ -300,12 +312,12 @@ public class LobbyService {
         playerRepository.save(player);
 
         sendLobbyPlayerStatusUpdate(lobbyId);
+        boardPreparer.prepare(lobby);
 
         if (shouldStartGame(lobby)) {
             lobby.setGameStarted(true);
-            lobbyRepository.save(lobby);
+            setLobbyExpiry(lobby, Instant.now().plus(STARTED_LOBBY_TIMEOUT));
             websocketService.sendMessage("/topic/lobby/" + lobbyId + "/start", true);
-            stopLobbyTimer(lobbyId);
         }
         return player;
     }
@@ -326,7 +338,9 @@ public class LobbyService {
         }
 
         lobby.addCustomWord(word);
-        return lobbyRepository.save(lobby);
+        lobby = lobbyRepository.save(lobby);
+        boardPreparer.prepare(lobby);
+        return lobby;
     }
 
     public Lobby removeCustomWord(Long id, String word) {
@@ -340,7 +354,9 @@ public class LobbyService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Word not found");
         }
     
-        return lobbyRepository.save(lobby);
+        lobby = lobbyRepository.save(lobby);
+        boardPreparer.prepare(lobby);
+        return lobby;
     }
 
     public boolean shouldStartGame(Lobby lobby) {
@@ -398,44 +414,49 @@ public class LobbyService {
     }
 
 
+    /**
+     * Lets the lobby expire if no game is started within {@link #LOBBY_TIMEOUT}. A countdown that
+     * is already running is not extended. Expired lobbies are closed by the {@link ExpirySweeper}.
+     */
     public void scheduleLobbyTimeout(Lobby lobby) {
         if (lobby.isGameStarted()) {
             return; //No need to timeout a lobby that already started a game
         }
-    
-        if (lobbyTimers.containsKey(lobby.getId())) {
-            log.info("Timer already exists for lobby {} — not rescheduling.", lobby.getId());
-            return; //Timer already running
-        }
 
-        Timer timer = new Timer(); //create and schedule a new one 
-        lobbyTimers.put(lobby.getId(), timer);
+        Instant expiresAt = Instant.now().plus(LOBBY_TIMEOUT);
+        if (lobby.getExpiresAt() != null && !lobby.getExpiresAt().isAfter(expiresAt)) {
+            return; //Countdown already running
+        }
+        setLobbyExpiry(lobby, expiresAt);
+    }
 
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    Lobby currentLobby = getLobbyById(lobby.getId());
-                    if (!currentLobby.isGameStarted()) {
-                        closeLobby(currentLobby.getId());
-                    }
-                } catch (Exception e) {
-                    log.warn("Error in scheduled lobby timeout for lobby {}: {}", lobby.getId(), e.getMessage());
-                } finally {
-                    try {
-                        stopLobbyTimer(lobby.getId());
-                    } catch (Exception e) {
-                        log.warn("Failed to remove timer for lobby {}: {}", lobby.getId(), e.getMessage());
-                    }
-                }
-            }
-        }, 10 * 60 * 1000); 
+    /**
+     * Pushes the expiry of a lobby whose game is being played to {@link #STARTED_LOBBY_TIMEOUT} from now.
+     */
+    public void extendStartedLobby(Long lobbyId) {
+        lobbyRepository.findById(lobbyId)
+            .filter(Lobby::isGameStarted)
+            .ifPresent(lobby -> setLobbyExpiry(lobby, Instant.now().plus(STARTED_LOBBY_TIMEOUT)));
     }
 
-    public void stopLobbyTimer(Long lobbyId) {
-        Timer existing = lobbyTimers.remove(lobbyId);
-        if (existing != null) {
-            existing.cancel();
+    /**
+     * Sets the expiry of the lobby, its teams and players, so they are removed together.
+     */
+    private void setLobbyExpiry(Lobby lobby, Instant expiresAt) {
+        lobby.setExpiresAt(expiresAt);
+        lobbyRepository.save(lobby);
+
+        for (Team team : new Team[] { lobby.getRedTeam(), lobby.getBlueTeam() }) {
+            if (team != null) {
+                team.setExpiresAt(expiresAt);
+                teamRepository.save(team);
+            }
+        }
+        for (Player player : lobby.getPlayers()) {
+            if (player != null) {
+                player.setExpiresAt(expiresAt);
+                playerRepository.save(player);
+            }
         }
     }
 
@@ -444,11 +465,11 @@ public class LobbyService {
         try {
             lobby = getLobbyById(lobbyId);
         } catch (Exception ex) {
-            stopLobbyTimer(lobbyId);
             return;
         }
 
         websocketService.sendMessage("/topic/lobby/" + lobbyId + "/close", "CLOSED");
+        boardPreparer.invalidate(lobbyId);
 
         // Remove all players (if still exist)
         if (lobby.getPlayers() != null) {
@@ -479,13 +500,12 @@ public class LobbyService {
         try {
             if (lobbyRepository.existsById(lobbyId)) {
                 lobbyRepository.deleteById(lobbyId);
-                stopLobbyTimer(lobbyId); 
             }
             } catch (Exception e) {
             log.warn("Error deleting lobby " + lobbyId, e);
         }
 
-        log.info("Lobby " + lobbyId + " has been closed due to inactivity.");
+        log.info("Lobby " + lobbyId + " has been closed after it expired.");
     }
 
     public TeamColor getTeamColorByPlayer(Long playerId) {
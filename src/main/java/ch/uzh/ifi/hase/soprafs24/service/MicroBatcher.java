@@ -0,0 +1,109 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Collects the keys submitted within a short window and sends them as one batch. The batch is sent when
+ * the window of its first key has passed or when it is full, every caller gets the result for its key.
+ * A key submitted again while its batch is still collecting shares the pending future.
+ */
+public class MicroBatcher<K, V> {
+
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final Function<List<K>, CompletableFuture<Map<K, V>>> send;
+    private final Executor executor;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedKeys = new AtomicLong();
+
+    // the batch that is collecting, guarded by this
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    public MicroBatcher(long windowMs, int maxBatchSize, Function<List<K>, CompletableFuture<Map<K, V>>> send,
+                        Executor executor) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.send = send;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<V> submit(K key) {
+        CompletableFuture<V> result;
+        Map<K, CompletableFuture<V>> full = null;
+        synchronized (this) {
+            result = pending.get(key);
+            if (result != null) {
+                return result;
+            }
+            result = new CompletableFuture<>();
+            pending.put(key, result);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new LinkedHashMap<>();
+            } else if (pending.size() == 1) {
+                Map<K, CompletableFuture<V>> batch = pending;
+                CompletableFuture.delayedExecutor(windowMs, TimeUnit.MILLISECONDS, executor).execute(() -> flush(batch));
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return result;
+    }
+
+    private void flush(Map<K, CompletableFuture<V>> batch) {
+        synchronized (this) {
+            // the batch was already sent because it was full
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        send(batch);
+    }
+
+    private void send(Map<K, CompletableFuture<V>> batch) {
+        batches.incrementAndGet();
+        batchedKeys.addAndGet(batch.size());
+        CompletableFuture<Map<K, V>> sent;
+        try {
+            sent = send.apply(new ArrayList<>(batch.keySet()));
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((results, e) -> batch.forEach((key, future) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else if (results.containsKey(key)) {
+                future.complete(results.get(key));
+            } else {
+                future.completeExceptionally(new IllegalStateException("No result for " + key));
+            }
+        }));
+    }
+
+    /**
+     * Batches sent so far.
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Keys sent so far, over all batches.
+     */
+    public long getBatchedKeys() {
+        return batchedKeys.get();
+    }
+}
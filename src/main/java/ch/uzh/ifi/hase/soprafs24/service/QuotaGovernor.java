@@ -0,0 +1,263 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token bucket in front of a rate limited API. Every request takes one token, tokens come back at a fixed
+ * rate up to the burst size. Without a free token a request waits in the queue of its priority, queues are
+ * served strictly by priority. Requests are shed if their queue is full or they waited too long.
+ * Background refills only get a token while the bucket is at least half full, the rest is kept for
+ * game starts and pre-generation. The granted and shed requests per priority are logged once a minute.
+ */
+public class QuotaGovernor {
+
+    public enum Priority {
+        // a player waits for the board
+        INTERACTIVE(100, 0),
+        // words prepared for a lobby that is about to start
+        PREGENERATION(20, 0),
+        // word pool refills
+        REFILL(5, 0.5);
+
+        private final int maxQueued;
+        // share of the burst that must be left after taking a token
+        private final double reserve;
+
+        Priority(int maxQueued, double reserve) {
+            this.maxQueued = maxQueued;
+            this.reserve = reserve;
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(QuotaGovernor.class);
+    private final String name;
+    private final int burst;
+    private final double tokensPerNano;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    // guarded by this
+    private double tokens;
+    private long refilledAt;
+    private boolean drainScheduled;
+    private final Map<Priority, Deque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Long> granted = new EnumMap<>(Priority.class);
+    private final Map<Priority, Long> shed = new EnumMap<>(Priority.class);
+    private long loggedRequests;
+
+    public QuotaGovernor(String name, int requestsPerMinute, int burst, long maxWaitMs) {
+        this(name, requestsPerMinute, burst, maxWaitMs, System::nanoTime, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-quota");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    QuotaGovernor(String name, int requestsPerMinute, int burst, long maxWaitMs, LongSupplier clock,
+                  ScheduledExecutorService scheduler) {
+        if (requestsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("requestsPerMinute and burst must be positive");
+        }
+        this.name = name;
+        this.burst = burst;
+        this.tokensPerNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.tokens = burst;
+        this.refilledAt = clock.getAsLong();
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            granted.put(priority, 0L);
+            shed.put(priority, 0L);
+        }
+        scheduler.scheduleAtFixedRate(this::logStats, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Completes with true once the request may be sent, or with false if it was shed. Never completes
+     * exceptionally.
+     */
+    public CompletableFuture<Boolean> acquire(Priority priority) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        synchronized (this) {
+            refill();
+            if (!waitingAtOrAbove(priority) && take(priority)) {
+                result.complete(true);
+                return result;
+            }
+            Deque<Waiter> queue = queues.get(priority);
+            if (queue.size() >= priority.maxQueued) {
+                count(shed, priority);
+                log.debug("Quota of {} exhausted, shedding {} request", name, priority);
+                result.complete(false);
+                return result;
+            }
+            queue.add(new Waiter(result, clock.getAsLong() + maxWaitNanos));
+            scheduleDrain();
+        }
+        return result;
+    }
+
+    /**
+     * Grants the free tokens to the waiting requests by priority and sheds those that waited too long.
+     */
+    void drain() {
+        List<CompletableFuture<Boolean>> grantedNow = new ArrayList<>();
+        List<CompletableFuture<Boolean>> shedNow = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            refill();
+            long now = clock.getAsLong();
+            for (Priority priority : Priority.values()) {
+                Deque<Waiter> queue = queues.get(priority);
+                queue.removeIf(waiter -> {
+                    if (now - waiter.deadline < 0) {
+                        return false;
+                    }
+                    count(shed, priority);
+                    shedNow.add(waiter.result);
+                    return true;
+                });
+            }
+            // strictly by priority, a lower priority never overtakes a waiting higher one
+            grant:
+            for (Priority priority : Priority.values()) {
+                Deque<Waiter> queue = queues.get(priority);
+                while (!queue.isEmpty()) {
+                    if (!take(priority)) {
+                        break grant;
+                    }
+                    grantedNow.add(queue.poll().result);
+                }
+            }
+            scheduleDrain();
+        }
+        if (!shedNow.isEmpty()) {
+            log.warn("Quota of {} exhausted, shed {} waiting requests", name, shedNow.size());
+        }
+        shedNow.forEach(result -> result.complete(false));
+        grantedNow.forEach(result -> result.complete(true));
+    }
+
+    private boolean take(Priority priority) {
+        if (tokens - 1 < priority.reserve * burst) {
+            return false;
+        }
+        tokens -= 1;
+        count(granted, priority);
+        return true;
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private boolean waitingAtOrAbove(Priority priority) {
+        for (Priority other : Priority.values()) {
+            if (!queues.get(other).isEmpty()) {
+                return true;
+            }
+            if (other == priority) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // wakes up when the first waiting request gets a token or the oldest reaches its deadline
+    private void scheduleDrain() {
+        if (drainScheduled || scheduler.isShutdown()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long delay = Long.MAX_VALUE;
+        for (Priority priority : Priority.values()) {
+            Deque<Waiter> queue = queues.get(priority);
+            if (queue.isEmpty()) {
+                continue;
+            }
+            if (delay == Long.MAX_VALUE) {
+                double missing = priority.reserve * burst + 1 - tokens;
+                delay = (long) Math.ceil(Math.max(0, missing) / tokensPerNano);
+            }
+            delay = Math.min(delay, queue.peek().deadline - now);
+        }
+        if (delay == Long.MAX_VALUE) {
+            return;
+        }
+        drainScheduled = true;
+        scheduler.schedule(this::drain, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    // totals since the start, only logged if requests came in since the last time
+    private synchronized void logStats() {
+        long requests = 0;
+        Map<Priority, Integer> queued = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            requests += granted.get(priority) + shed.get(priority);
+            queued.put(priority, queues.get(priority).size());
+        }
+        if (requests == loggedRequests) {
+            return;
+        }
+        loggedRequests = requests;
+        refill();
+        log.info("Quota of {}: {} tokens, granted {}, shed {}, queued {}", name, (int) tokens, granted, shed, queued);
+    }
+
+    private static void count(Map<Priority, Long> counter, Priority priority) {
+        counter.merge(priority, 1L, Long::sum);
+    }
+
+    synchronized double getTokens() {
+        refill();
+        return tokens;
+    }
+
+    synchronized int getQueued(Priority priority) {
+        return queues.get(priority).size();
+    }
+
+    synchronized long getGranted(Priority priority) {
+        return granted.get(priority);
+    }
+
+    /**
+     * Requests refused because the queue was full or they waited too long.
+     */
+    synchronized long getShed(Priority priority) {
+        return shed.get(priority);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Waiter {
+
+        private final CompletableFuture<Boolean> result;
+        private final long deadline;
+
+        private Waiter(CompletableFuture<Boolean> result, long deadline) {
+            this.result = result;
+            this.deadline = deadline;
+        }
+    }
+}
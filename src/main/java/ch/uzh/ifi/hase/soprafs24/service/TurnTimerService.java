@@ -0,0 +1,260 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashed timing wheel for the turn deadlines of all games. A single thread advances the wheel every
+ * {@value #TICK_MS} ms and fires the timers of the current bucket, scheduling and cancelling a timer is O(1).
+ * Timers fire on the wheel thread, so tasks must only hand their work off, e.g. to the mailbox of the game.
+ * The number of timers and the firing lag are logged once a minute.
+ */
+@Component
+public class TurnTimerService {
+
+    static final long TICK_MS = 100;
+    // must be a power of two, one revolution covers 51.2 s, longer deadlines wait for several revolutions
+    static final int WHEEL_SIZE = 512;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MS);
+    // the timer metrics are logged once a minute while timers are in use
+    private static final long STATS_TICKS = TimeUnit.MINUTES.toMillis(1) / TICK_MS;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Logger log = LoggerFactory.getLogger(TurnTimerService.class);
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    // timers are handed to the wheel thread through queues, the buckets are only touched by that thread
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingTimers = new AtomicInteger();
+    private final AtomicLong firedTimers = new AtomicLong();
+    private final AtomicLong maxFiringLagMs = new AtomicLong();
+    private volatile long lastFiringLagMs;
+    private volatile boolean running = true;
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private long tick;
+    private long loggedFiredTimers;
+
+    public TurnTimerService() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+        worker = new Thread(this::run, "turn-timer-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Runs the task once after the delay. The precision is one tick.
+     */
+    public Timeout schedule(Consumer<Timeout> task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startTime + unit.toNanos(delay);
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimers.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    public int getPendingTimers() {
+        return pendingTimers.get();
+    }
+
+    public long getFiredTimers() {
+        return firedTimers.get();
+    }
+
+    /**
+     * Delay between the deadline of the last fired timer and the moment it fired.
+     */
+    public long getLastFiringLagMs() {
+        return lastFiringLagMs;
+    }
+
+    public long getMaxFiringLagMs() {
+        return maxFiringLagMs.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = TICK_NANOS * (tick + 1);
+            long sleepNanos = tickDeadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            removeCancelled();
+            transferScheduled();
+            wheel[(int) (tick & (WHEEL_SIZE - 1))].expire(System.nanoTime() - startTime);
+            tick++;
+            if (tick % STATS_TICKS == 0) {
+                logStats();
+            }
+        }
+    }
+
+    private void logStats() {
+        long fired = getFiredTimers();
+        if (fired == loggedFiredTimers && getPendingTimers() == 0) {
+            return;
+        }
+        log.info("Turn timers: {} pending, {} fired in the last minute, firing lag {} ms (max {} ms)",
+            getPendingTimers(), fired - loggedFiredTimers, getLastFiringLagMs(), getMaxFiringLagMs());
+        loggedFiredTimers = fired;
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            long deadlineTick = timeout.deadline / TICK_NANOS;
+            timeout.remainingRounds = (deadlineTick - tick) / WHEEL_SIZE;
+            // a deadline in the past goes into the current bucket
+            long targetTick = Math.max(deadlineTick, tick);
+            wheel[(int) (targetTick & (WHEEL_SIZE - 1))].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void fire(Timeout timeout, long now) {
+        if (!timeout.state.compareAndSet(PENDING, EXPIRED)) {
+            return;
+        }
+        pendingTimers.decrementAndGet();
+        firedTimers.incrementAndGet();
+        long lagMs = TimeUnit.NANOSECONDS.toMillis(Math.max(0, now - timeout.deadline));
+        lastFiringLagMs = lagMs;
+        maxFiringLagMs.accumulateAndGet(lagMs, Math::max);
+        try {
+            timeout.task.accept(timeout);
+        } catch (Exception e) {
+            log.warn("Turn timer task failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Handle of a scheduled timer.
+     */
+    public final class Timeout {
+
+        private final Consumer<Timeout> task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // only accessed by the wheel thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Consumer<Timeout> task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timer. Returns false if it has already fired or was cancelled before.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pendingTimers.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of the timers of one slot of the wheel.
+     */
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() != PENDING) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    fire(timeout, now);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
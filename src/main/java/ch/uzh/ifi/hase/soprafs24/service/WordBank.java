@@ -0,0 +1,273 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+
+/**
+ * Offline noun banks per language, bundled as {@code wordbanks/<language>.bin} and memory-mapped at startup.
+ * Boards are drawn from the banks without any network request. The binary files are built from the
+ * curated lists in {@code src/main/wordbanks} with {@link #main(String[])}.
+ * <p>
+ * Format: magic, word count n, n + 1 offsets into the data section, then the UTF-8 bytes of all words.
+ * Word i lies between offset i and i + 1, so a random word is read in O(1). A draw is O(1) as well, whatever
+ * the size of the bank, see {@link Deck}.
+ */
+@Component
+public class WordBank {
+
+    static final int MAGIC = 0x57424E4B; // "WBNK"
+    private static final int HEADER_SIZE = 8;
+    // share of a bank that recent boards keep from being drawn again, the rest is left to draw from
+    static final int RECENT_SHARE_DIVISOR = 2;
+
+    private final Logger log = LoggerFactory.getLogger(WordBank.class);
+    private final Map<GameLanguage, ByteBuffer> banks = new EnumMap<>(GameLanguage.class);
+    // indices of each bank split into the words that can be drawn and the recently drawn ones
+    private final Map<GameLanguage, Deck> decks = new EnumMap<>(GameLanguage.class);
+
+    public WordBank() {
+        for (GameLanguage language : GameLanguage.values()) {
+            String resource = "wordbanks/" + language.name().toLowerCase(Locale.ROOT) + ".bin";
+            try {
+                ByteBuffer bank = map(resource);
+                if (bank != null) {
+                    banks.put(language, bank);
+                    decks.put(language, new Deck(bank.getInt(4)));
+                } else {
+                    log.warn("No word bank bundled for {}", language);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.warn("Failed to load word bank {}: {}", resource, e.getMessage());
+            }
+        }
+    }
+
+    public boolean isAvailable(GameLanguage language) {
+        return banks.containsKey(language);
+    }
+
+    public int size(GameLanguage language) {
+        ByteBuffer bank = banks.get(language);
+        return bank != null ? bank.getInt(4) : 0;
+    }
+
+    /**
+     * Draws {@code count} distinct words uniformly at random, fewer if the bank is smaller. Words drawn by
+     * recent calls are skipped, up to half of the bank, so consecutive boards do not share words. Returns an
+     * empty list if there is no bank for the language.
+     */
+    public List<String> sample(GameLanguage language, int count) {
+        ByteBuffer bank = banks.get(language);
+        if (bank == null) {
+            return List.of();
+        }
+        int size = bank.getInt(4);
+        int k = Math.min(count, size);
+        Deck deck = decks.get(language);
+        List<Integer> indices = new ArrayList<>(k);
+        synchronized (deck) {
+            int limit = Math.min(size / RECENT_SHARE_DIVISOR, size - k);
+            deck.forgetOldest(limit);
+            for (int i = 0; i < k; i++) {
+                indices.add(deck.draw(ThreadLocalRandom.current()));
+            }
+            deck.forgetOldest(limit);
+        }
+        return words(bank, size, indices, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draws without skipping recent words, the same random sequence gives the same words.
+     */
+    public List<String> sample(GameLanguage language, int count, Random random) {
+        ByteBuffer bank = banks.get(language);
+        if (bank == null) {
+            return List.of();
+        }
+        int size = bank.getInt(4);
+        return words(bank, size, draw(size, Math.min(count, size), random), random);
+    }
+
+    // Floyd's algorithm, k random numbers and no retries
+    private static List<Integer> draw(int size, int k, Random random) {
+        Set<Integer> indices = new LinkedHashSet<>();
+        for (int j = size - k; j < size; j++) {
+            int index = random.nextInt(j + 1);
+            indices.add(indices.contains(index) ? j : index);
+        }
+        return new ArrayList<>(indices);
+    }
+
+    private static List<String> words(ByteBuffer bank, int size, List<Integer> indices, Random random) {
+        List<String> words = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            words.add(wordAt(bank, size, index));
+        }
+        Collections.shuffle(words, random);
+        return words;
+    }
+
+    private static String wordAt(ByteBuffer bank, int size, int index) {
+        int data = HEADER_SIZE + 4 * (size + 1);
+        int start = bank.getInt(HEADER_SIZE + 4 * index);
+        int end = bank.getInt(HEADER_SIZE + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        bank.get(data + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A permutation of the indices of a bank, arranged as a ring: the indices that can be drawn start at head,
+     * the recently drawn ones follow them, newest first. A draw swaps the drawn index to the end of the drawable
+     * window and shrinks the window, forgetting the oldest draws grows it again, both in O(1).
+     */
+    private static final class Deck {
+
+        private final int[] order;
+        private int head;
+        private int available;
+
+        private Deck(int size) {
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            available = size;
+        }
+
+        private int draw(Random random) {
+            int size = order.length;
+            int last = (head + available - 1) % size;
+            int picked = (head + random.nextInt(available)) % size;
+            int index = order[picked];
+            order[picked] = order[last];
+            order[last] = index;
+            available--;
+            return index;
+        }
+
+        // the oldest recent indices lie just before head, they become drawable by moving head back
+        private void forgetOldest(int limit) {
+            int excess = order.length - available - limit;
+            if (excess > 0) {
+                head = Math.floorMod(head - excess, order.length);
+                available += excess;
+            }
+        }
+    }
+
+    /**
+     * Maps the resource read-only. A resource inside the jar cannot be mapped, it is copied to a temporary file first.
+     */
+    private ByteBuffer map(String resource) throws IOException {
+        URL url = WordBank.class.getClassLoader().getResource(resource);
+        if (url == null) {
+            return null;
+        }
+        Path path;
+        if ("file".equals(url.getProtocol())) {
+            try {
+                path = Path.of(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else {
+            path = Files.createTempFile("wordbank-", ".bin");
+            path.toFile().deleteOnExit();
+            try (InputStream in = url.openStream()) {
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        ByteBuffer bank;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            bank = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        validate(bank);
+        return bank;
+    }
+
+    private static void validate(ByteBuffer bank) {
+        if (bank.capacity() < HEADER_SIZE || bank.getInt(0) != MAGIC) {
+            throw new IllegalStateException("not a word bank");
+        }
+        int size = bank.getInt(4);
+        long data = HEADER_SIZE + 4L * (size + 1);
+        if (size <= 0 || data > bank.capacity() || data + bank.getInt(HEADER_SIZE + 4 * size) != bank.capacity()) {
+            throw new IllegalStateException("corrupt word bank");
+        }
+    }
+
+    /**
+     * Writes the words in the bank format, blank lines, comments starting with '#' and duplicates are skipped.
+     */
+    static void write(List<String> lines, OutputStream target) throws IOException {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                unique.add(trimmed.toUpperCase(Locale.ROOT));
+            }
+        }
+        List<byte[]> words = new ArrayList<>();
+        for (String word : unique) {
+            words.add(word.getBytes(StandardCharsets.UTF_8));
+        }
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeInt(words.size());
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] word : words) {
+            offset += word.length;
+            out.writeInt(offset);
+        }
+        for (byte[] word : words) {
+            out.write(word);
+        }
+        out.flush();
+    }
+
+    /**
+     * Rebuilds the bundled banks: {@code WordBank <source dir> <target dir>}, e.g.
+     * {@code src/main/wordbanks src/main/resources/wordbanks}.
+     */
+    public static void main(String[] args) throws IOException {
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        Files.createDirectories(target);
+        for (GameLanguage language : GameLanguage.values()) {
+            String name = language.name().toLowerCase(Locale.ROOT);
+            List<String> lines = Files.readAllLines(source.resolve(name + ".txt"), StandardCharsets.UTF_8);
+            try (OutputStream out = Files.newOutputStream(target.resolve(name + ".bin"))) {
+                write(lines, out);
+            }
+        }
+    }
+}
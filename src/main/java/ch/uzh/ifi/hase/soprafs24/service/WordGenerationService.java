@@ -1,120 +1,534 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import ch.uzh.ifi.hase.soprafs24.api.apiToken;
 import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.service.QuotaGovernor.Priority;
 
 
 @Service
 @Transactional
 public class WordGenerationService {
+  private static final int BOARD_SIZE = 25;
+  private static final int MAX_RETRIES = 5;
+  // words per request, concurrent callers draw different boards from the shared answer
+  static final int SHARED_REQUEST_SIZE = 2 * BOARD_SIZE;
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(3);
+  static final long DEFAULT_REQUEST_TIMEOUT_MS = 10000;
+  // requests slower than this count against the circuit breaker
+  static final long SLOW_CALL_MS = 5000;
+  static final long BREAKER_OPEN_MS = 30000;
+  // a second request is sent if the first has not answered by the p95 latency, these apply until it is known
+  static final long DEFAULT_HEDGE_DELAY_MS = 2000;
+  static final long MIN_HEDGE_DELAY_MS = 300;
+  // misses for different languages and themes within the window are sent as one prompt
+  static final long DEFAULT_BATCH_WINDOW_MS = 50;
+  static final int MAX_BATCH_SIZE = 8;
+  // request budget of the API key, shared by all requests
+  static final int DEFAULT_REQUESTS_PER_MINUTE = 60;
+  static final int DEFAULT_BURST = 10;
+  private static final String GEMINI_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent";
+
   private final Logger log = LoggerFactory.getLogger(WordGenerationService.class);
   
   private static String API_KEY = apiToken.getApiToken();
-  private static String ENDPOINT = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key=" + API_KEY;
+  private volatile String endpoint = GEMINI_URL + "?key=" + API_KEY;
   
+  private final WordPool wordPool;
+  // separate per priority, a game start never waits behind a queued pre-generation for the same theme
+  private final Map<Priority, SingleFlight<WordPool.Key, List<String>>> inFlight = new EnumMap<>(Priority.class);
+  private final Map<Priority, MicroBatcher<WordPool.Key, List<String>>> batchers = new EnumMap<>(Priority.class);
+  private final Duration requestTimeout;
+  private final QuotaGovernor quotaGovernor;
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("word-api", SLOW_CALL_MS, BREAKER_OPEN_MS);
+  private final AtomicLong hedgedRequests = new AtomicLong();
+  private final AtomicLong hedgeWins = new AtomicLong();
+  private final AtomicInteger threadCount = new AtomicInteger();
+  private final ExecutorService httpExecutor = Executors.newFixedThreadPool(4, runnable -> {
+    Thread thread = new Thread(runnable, "word-api-http-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+  // one client for all requests, it keeps the connections to the API open
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .connectTimeout(CONNECT_TIMEOUT)
+      .executor(httpExecutor)
+      .build();
+
+  public WordGenerationService() {
+    this(WordPool.DEFAULT_LOW_WATERMARK, WordPool.DEFAULT_HIGH_WATERMARK, DEFAULT_REQUEST_TIMEOUT_MS);
+  }
+
+  public WordGenerationService(int lowWatermark, int highWatermark, long requestTimeoutMs) {
+    this(lowWatermark, highWatermark, requestTimeoutMs, DEFAULT_BATCH_WINDOW_MS, DEFAULT_REQUESTS_PER_MINUTE, DEFAULT_BURST);
+  }
+
+  @Autowired
+  public WordGenerationService(@Value("${words.pool.low-watermark:" + WordPool.DEFAULT_LOW_WATERMARK + "}") int lowWatermark,
+                               @Value("${words.pool.high-watermark:" + WordPool.DEFAULT_HIGH_WATERMARK + "}") int highWatermark,
+                               @Value("${words.api.timeout-ms:" + DEFAULT_REQUEST_TIMEOUT_MS + "}") long requestTimeoutMs,
+                               @Value("${words.api.batch-window-ms:" + DEFAULT_BATCH_WINDOW_MS + "}") long batchWindowMs,
+                               @Value("${words.api.requests-per-minute:" + DEFAULT_REQUESTS_PER_MINUTE + "}") int requestsPerMinute,
+                               @Value("${words.api.burst:" + DEFAULT_BURST + "}") int burst) {
+    this.wordPool = new WordPool(this::requestWords, lowWatermark, highWatermark);
+    this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+    // a request that waited longer than its own timeout for the quota is of no use any more
+    this.quotaGovernor = new QuotaGovernor("word-api", requestsPerMinute, burst, requestTimeoutMs);
+    for (Priority priority : Priority.values()) {
+      inFlight.put(priority, new SingleFlight<>());
+      batchers.put(priority, new MicroBatcher<>(batchWindowMs, MAX_BATCH_SIZE, keys -> requestBatch(keys, priority), httpExecutor));
+    }
+  }
+
   //fallback method to version without theme 
   public List<String> getWordsFromApi(GameLanguage language){
     return getWordsFromApi(null, language); 
   }
 
   public List<String> getWordsFromApi(String theme, GameLanguage language) {
-    int maxRetries = 5;
-    for (int attempt = 0; attempt < maxRetries; attempt++){
-      try {
-        HttpClient client = HttpClient.newHttpClient(); 
-        String prompt;
-
-        if (theme != null && !theme.isBlank()) {
-          prompt = "Give me a list of 25 random, common " + language + " nouns suitable for the board game Codenames. " +
-                   "The words should all clearly relate to the theme: '" + theme + "'. Output them in a JSON array.";
-        } else {
-          prompt = "Give me a list of 25 random, common " + language + " nouns suitable for the board game Codenames. " +
-                   "Output them in a JSON array.";
+    return getWordsFromApiAsync(theme, language).join();
+  }
+
+  public CompletableFuture<List<String>> getWordsFromApiAsync(GameLanguage language) {
+    return getWordsFromApiAsync(null, language);
+  }
+
+  public CompletableFuture<List<String>> getWordsFromApiAsync(GameLanguage language, Priority priority) {
+    return getWordsFromApiAsync(null, language, priority);
+  }
+
+  public CompletableFuture<List<String>> getWordsFromApiAsync(String theme, GameLanguage language) {
+    return getWordsFromApiAsync(theme, language, Priority.INTERACTIVE);
+  }
+
+  /**
+   * Returns 25 distinct words, taken from the word pool if it has enough words for the language
+   * and theme. Otherwise the words are requested right away, concurrent callers for the same language
+   * and theme share one request and each get their own random subset. Requests for other languages and
+   * themes made within the batch window go out in the same prompt. The request waits for the quota
+   * of its priority. Completes with an empty list if the request fails or is shed, never exceptionally.
+   */
+  public CompletableFuture<List<String>> getWordsFromApiAsync(String theme, GameLanguage language, Priority priority) {
+    Optional<List<String>> pooled = wordPool.draw(language, theme, BOARD_SIZE);
+    if (pooled.isPresent()) {
+      return CompletableFuture.completedFuture(pooled.get());
+    }
+    WordPool.Key key = WordPool.Key.of(language, theme);
+    return inFlight.get(priority).run(key, () -> requestBoard(key, priority, 0))
+        .thenApply(words -> takeBoard(language, key.theme, words));
+  }
+
+  /**
+   * The answer is larger than a board, the words go to the word pool and every waiting caller takes its
+   * own board from there. Only if the pool ran short, e.g. many callers shared the answer, the board
+   * is a random subset of the answer.
+   */
+  private List<String> takeBoard(GameLanguage language, String theme, List<String> words) {
+    if (words.size() <= BOARD_SIZE) {
+      return words;
+    }
+    wordPool.offer(language, theme, words);
+    return wordPool.take(language, theme, BOARD_SIZE).orElseGet(() -> randomBoard(words));
+  }
+
+  private CompletableFuture<List<String>> requestBoard(WordPool.Key key, Priority priority, int attempt) {
+    if (attempt == MAX_RETRIES) {
+      log.error("Exceed maximum retries"); 
+      return CompletableFuture.completedFuture(List.of());
+    }
+    long hedgeDelayMs = Math.max(MIN_HEDGE_DELAY_MS, circuitBreaker.getLatencyPercentileMs(0.95, DEFAULT_HEDGE_DELAY_MS));
+    Executor hedgeTimer = CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS, httpExecutor);
+    return hedged(() -> batchers.get(priority).submit(key).exceptionally(e -> List.of()), hedgeTimer).thenCompose(words -> {
+      // an empty list means the request failed
+      if (words.isEmpty() || words.size() >= BOARD_SIZE) {
+        return CompletableFuture.completedFuture(words);
       }
+      log.warn("Attempt {}: Duplicate words found, retrying...", attempt+1);
+      return requestBoard(key, priority, attempt + 1);
+    });
+  }
 
-        JsonObject messagePart = new JsonObject(); 
-        messagePart.addProperty("text", prompt); 
-        JsonArray parts = new JsonArray();
-        parts.add(messagePart); 
-  
-        JsonObject content = new JsonObject();
-        content.add("parts", parts);
-        JsonArray contents = new JsonArray(); 
-        contents.add(content); 
-  
-        JsonObject requestBody = new JsonObject(); 
-        requestBody.add("contents", contents); 
-  
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(ENDPOINT))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
-                .build();
-  
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString()); 
-  
-        JsonObject responseJson = JsonParser.parseString(response.body()).getAsJsonObject(); 
-        String rawJsonArray = responseJson
-                      .getAsJsonArray("candidates")
-                      .get(0).getAsJsonObject()
-                      .getAsJsonObject("content")
-                      .getAsJsonArray("parts")
-                      .get(0).getAsJsonObject()
-                      .get("text").getAsString();
-  
-        if (rawJsonArray.contains("```")){
-          rawJsonArray = rawJsonArray
-              .replaceAll("(?s)```json", "")
-              .replaceAll("(?s)```", "")
-              .trim();
+  /**
+   * Sends the request, and a second one if the first has not answered when the hedge timer runs. Completes with the
+   * first non-empty answer, or an empty list if all requests failed. The slower request is not cancelled,
+   * its outcome still counts for the circuit breaker.
+   */
+  CompletableFuture<List<String>> hedged(Supplier<CompletableFuture<List<String>>> request, Executor hedgeTimer) {
+    CompletableFuture<List<String>> result = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(1);
+    AtomicBoolean answered = new AtomicBoolean();
+    request.get().thenAccept(words -> onAnswer(result, pending, answered, words, false));
+    hedgeTimer.execute(() -> {
+      if (result.isDone()) {
+        return;
+      }
+      pending.incrementAndGet();
+      hedgedRequests.incrementAndGet();
+      request.get().thenAccept(words -> onAnswer(result, pending, answered, words, true));
+    });
+    return result;
+  }
+
+  private void onAnswer(CompletableFuture<List<String>> result, AtomicInteger pending, AtomicBoolean answered,
+                        List<String> words, boolean hedge) {
+    if (!words.isEmpty()) {
+      if (answered.compareAndSet(false, true)) {
+        if (hedge) {
+          hedgeWins.incrementAndGet();
         }
-  
-        JsonArray wordArray = JsonParser.parseString(rawJsonArray).getAsJsonArray();
-  
-        List<String> words = new ArrayList<>();
-        Set<String> seenWords = new HashSet<>();
-
-        for (JsonElement word : wordArray) {
-          String w = word.getAsString().trim().toUpperCase();
-          if(!seenWords.contains(w)){
-            seenWords.add(w);
-            words.add(w);
+        result.complete(words);
+      }
+    } else if (pending.decrementAndGet() == 0) {
+      result.complete(List.of());
+    }
+  }
+
+  private static List<String> randomBoard(List<String> words) {
+    List<String> shuffled = new ArrayList<>(words);
+    Collections.shuffle(shuffled, ThreadLocalRandom.current());
+    return new ArrayList<>(shuffled.subList(0, BOARD_SIZE));
+  }
+
+  /**
+   * Requests the words for all keys of a batch with one prompt, a single key is requested on its own.
+   * Keys missing from the answer are requested separately. If the request fails every key gets an empty list.
+   */
+  private CompletableFuture<Map<WordPool.Key, List<String>>> requestBatch(List<WordPool.Key> keys, Priority priority) {
+    if (keys.size() == 1) {
+      WordPool.Key key = keys.get(0);
+      return requestWordsAsync(key.theme, key.language, SHARED_REQUEST_SIZE, priority).thenApply(words -> Map.of(key, words));
+    }
+    String prompt = batchPrompt(keys, SHARED_REQUEST_SIZE);
+    return send(prompt, priority, body -> parseBatch(body, SHARED_REQUEST_SIZE), lists -> !lists.isEmpty(), Map.<Integer, List<String>>of())
+        .thenCompose(lists -> {
+          Map<WordPool.Key, CompletableFuture<List<String>>> results = new LinkedHashMap<>();
+          for (int i = 0; i < keys.size(); i++) {
+            WordPool.Key key = keys.get(i);
+            List<String> words = lists.getOrDefault(i + 1, List.of());
+            if (words.isEmpty() && !lists.isEmpty()) {
+              log.warn("No words for {} in batched answer, requesting separately", key);
+              results.put(key, requestWordsAsync(key.theme, key.language, SHARED_REQUEST_SIZE, priority));
+            } else {
+              results.put(key, CompletableFuture.completedFuture(words));
+            }
           }
-        }
+          return CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<WordPool.Key, List<String>> words = new HashMap<>();
+            results.forEach((key, result) -> words.put(key, result.join()));
+            return words;
+          });
+        });
+  }
+
+  SingleFlight<WordPool.Key, List<String>> getInFlight(Priority priority) {
+    return inFlight.get(priority);
+  }
+
+  public WordPool getWordPool() {
+    return wordPool;
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public MicroBatcher<WordPool.Key, List<String>> getBatcher(Priority priority) {
+    return batchers.get(priority);
+  }
 
-        if (words.size() == 25) {
-          return words;
-        } else {
-          log.warn("Attempt {}: Duplicate words found, retrying...", attempt+1);
+  public QuotaGovernor getQuotaGovernor() {
+    return quotaGovernor;
+  }
+
+  public long getHedgedRequests() {
+    return hedgedRequests.get();
+  }
+
+  /**
+   * Hedged requests that answered before the first request.
+   */
+  public long getHedgeWins() {
+    return hedgeWins.get();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    wordPool.shutdown();
+    quotaGovernor.shutdown();
+    httpExecutor.shutdownNow();
+  }
+
+  // source of the word pool, refills have the lowest priority
+  List<String> requestWords(String theme, GameLanguage language, int count) {
+    return requestWordsAsync(theme, language, count, Priority.REFILL).join();
+  }
+
+  /**
+   * Sends one request to Gemini and completes with the distinct words of the answer, at most {@code count}.
+   * Completes with an empty list if the request fails, times out or is shed, or right away while the circuit
+   * breaker is open. Boards are then filled from the offline word banks.
+   */
+  CompletableFuture<List<String>> requestWordsAsync(String theme, GameLanguage language, int count, Priority priority) {
+    String prompt;
+    if (theme != null && !theme.isBlank()) {
+      prompt = "Give me a list of " + count + " random, common " + language + " nouns suitable for the board game Codenames. " +
+               "The words should all clearly relate to the theme: '" + theme + "'. Output them in a JSON array.";
+    } else {
+      prompt = "Give me a list of " + count + " random, common " + language + " nouns suitable for the board game Codenames. " +
+               "Output them in a JSON array.";
+    }
+    return send(prompt, priority, body -> parseWords(body, count), words -> !words.isEmpty(), List.of());
+  }
+
+  /**
+   * Prompt for several word lists at once, the answer is a JSON object from the number of each key
+   * (starting at 1) to its words.
+   */
+  static String batchPrompt(List<WordPool.Key> keys, int count) {
+    StringBuilder prompt = new StringBuilder("Give me lists of " + count + " random, common nouns suitable for the board game Codenames, " +
+        "one list for each of the following requests:\n");
+    for (int i = 0; i < keys.size(); i++) {
+      WordPool.Key key = keys.get(i);
+      prompt.append(i + 1).append(". ").append(key.language).append(" nouns");
+      if (key.theme != null) {
+        prompt.append(" that all clearly relate to the theme: '").append(key.theme).append("'");
+      }
+      prompt.append('\n');
+    }
+    prompt.append("Output them in one JSON object that maps the number of each request to a JSON array of its nouns, " +
+        "e.g. {\"1\": [...], \"2\": [...]}.");
+    return prompt.toString();
+  }
+
+  /**
+   * Sends one prompt to Gemini once the quota governor admits it and parses the answer. Completes with the
+   * fallback if the request fails, times out or is shed, or right away while the circuit breaker is open.
+   */
+  private <T> CompletableFuture<T> send(String prompt, Priority priority, Function<String, T> parse, Predicate<T> answered,
+                                        T fallback) {
+    JsonObject messagePart = new JsonObject(); 
+    messagePart.addProperty("text", prompt); 
+    JsonArray parts = new JsonArray();
+    parts.add(messagePart); 
+
+    JsonObject content = new JsonObject();
+    content.add("parts", parts);
+    JsonArray contents = new JsonArray(); 
+    contents.add(content); 
+
+    JsonObject requestBody = new JsonObject(); 
+    requestBody.add("contents", contents); 
+
+    HttpRequest request;
+    try {
+      request = HttpRequest.newBuilder()
+              .uri(URI.create(endpoint))
+              .timeout(requestTimeout)
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
+              .build();
+    } catch (IllegalArgumentException e) {
+      log.error("Invalid word API endpoint", e);
+      return CompletableFuture.completedFuture(fallback);
+    }
+    // the breaker is asked first, a request it refuses must not use up the quota
+    CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+    if (permit == null) {
+      log.debug("Word API circuit breaker is open, skipping request");
+      return CompletableFuture.completedFuture(fallback);
+    }
+    return quotaGovernor.acquire(priority).thenCompose(admitted -> {
+      if (!admitted) {
+        permit.release();
+        return CompletableFuture.completedFuture(fallback);
+      }
+
+      long start = System.nanoTime();
+      return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+          .thenApply(response -> parse.apply(response.body()))
+          .whenComplete((result, e) -> {
+            long latency = System.nanoTime() - start;
+            if (e == null && answered.test(result)) {
+              permit.onSuccess(latency);
+            } else {
+              permit.onFailure(latency);
+            }
+          })
+          .exceptionally(e -> {
+            log.error("Error fetching words from Gemini: {}", e.getMessage());
+            return fallback;
+          });
+    });
+  }
+
+  /**
+   * Reads {@code candidates[0].content.parts[0].text} of a Gemini response without building a JSON tree,
+   * then reads the array embedded in the text (usually inside a ```json fence) in one pass. Returns the
+   * distinct words, at most {@code count}.
+   */
+  static List<String> parseWords(String body, int count) {
+    try {
+      String text = extractText(new JsonReader(new StringReader(body)));
+      if (text == null) {
+        throw new IllegalStateException("No text in response");
+      }
+      int arrayStart = text.indexOf('[');
+      if (arrayStart < 0) {
+        throw new IllegalStateException("No word array in response");
+      }
+      StringReader textReader = new StringReader(text);
+      textReader.skip(arrayStart);
+      JsonReader array = new JsonReader(textReader);
+      // the closing fence after the array is never read
+      array.setLenient(true);
+      return readWords(array, count);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads the answer to a {@link #batchPrompt(List, int)} the same way as {@link #parseWords(String, int)}.
+   * Returns the distinct words per key number, at most {@code count} each.
+   */
+  static Map<Integer, List<String>> parseBatch(String body, int count) {
+    try {
+      String text = extractText(new JsonReader(new StringReader(body)));
+      if (text == null) {
+        throw new IllegalStateException("No text in response");
+      }
+      int objectStart = text.indexOf('{');
+      if (objectStart < 0) {
+        throw new IllegalStateException("No word lists in response");
+      }
+      StringReader textReader = new StringReader(text);
+      textReader.skip(objectStart);
+      JsonReader object = new JsonReader(textReader);
+      object.setLenient(true);
+
+      Map<Integer, List<String>> lists = new HashMap<>();
+      object.beginObject();
+      while (object.hasNext()) {
+        String name = object.nextName().trim();
+        if (!name.matches("\\d{1,3}") || object.peek() != JsonToken.BEGIN_ARRAY) {
+          object.skipValue();
+          continue;
         }
-        
-      } catch (Exception e) {
-        log.error("Error fetching words from Gemini", e);
-        return List.of(); // fallback: just return an empty list
+        lists.put(Integer.parseInt(name), readWords(object, count));
+        while (object.hasNext()) {
+          object.skipValue();
+        }
+        object.endArray();
+      }
+      return lists;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // reads up to count distinct words of the array, the rest of the array is left unread
+  private static List<String> readWords(JsonReader array, int count) throws IOException {
+    List<String> words = new ArrayList<>();
+    Set<String> seenWords = new HashSet<>();
+    array.beginArray();
+    while (words.size() < count && array.hasNext()) {
+      if (array.peek() != JsonToken.STRING) {
+        array.skipValue();
+        continue;
+      }
+      String w = array.nextString().trim().toUpperCase();
+      if (seenWords.add(w)) {
+        words.add(w);
       }
     }
-    log.error("Exceed maximum retries"); 
-    return List.of();
+    return words;
+  }
+
+  private static String extractText(JsonReader reader) throws IOException {
+    if (!moveToField(reader, "candidates") || !enterFirstElement(reader)
+        || !moveToField(reader, "content")
+        || !moveToField(reader, "parts") || !enterFirstElement(reader)
+        || !moveToField(reader, "text") || reader.peek() != JsonToken.STRING) {
+      return null;
+    }
+    return reader.nextString();
+  }
+
+  private static boolean enterFirstElement(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      return false;
+    }
+    reader.beginArray();
+    return reader.hasNext();
+  }
+
+  private static boolean moveToField(JsonReader reader, String name) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      return false;
+    }
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals(name)) {
+        return true;
+      }
+      reader.skipValue();
+    }
+    return false;
   }
 
   public void setApiKey(String apiKey) {
     API_KEY = apiKey; 
-    ENDPOINT = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key=" + apiKey;
+    endpoint = GEMINI_URL + "?key=" + apiKey;
+  }
+
+  /**
+   * Sends the requests to another URL, e.g. a local stub server.
+   */
+  public void setEndpoint(String endpoint) {
+    this.endpoint = endpoint;
   }
 }
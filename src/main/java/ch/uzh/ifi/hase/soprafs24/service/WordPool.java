@@ -0,0 +1,282 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+
+/**
+ * Reserve of unique, validated words per language and theme. Boards take their words from the reserve
+ * without waiting for the word API. A reserve that drops below the low watermark is refilled in the
+ * background up to the high watermark, in batches that are split into many boards. Words are removed when
+ * a board takes them and recently taken words are not accepted again, so boards do not overlap.
+ * Every refill logs its duration and the hit rate of the reserves.
+ */
+public class WordPool {
+
+    static final int DEFAULT_LOW_WATERMARK = 50;
+    static final int DEFAULT_HIGH_WATERMARK = 250;
+    // words asked for per request when refilling, one request covers 8 boards
+    static final int BATCH_SIZE = 200;
+    // taken words per reserve that are not accepted again
+    static final int RECENT_WORDS = 200;
+    // requests per refill, a source that keeps returning known words must not be called forever
+    private static final int MAX_REFILL_REQUESTS = 10;
+    private static final int MAX_WORD_LENGTH = 24;
+    private static final Pattern VALID_WORD = Pattern.compile("\\p{L}[\\p{L}'-]*");
+
+    /**
+     * Fetches new words, theme is null for words without theme.
+     */
+    public interface WordSource {
+        List<String> fetch(String theme, GameLanguage language, int count);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(WordPool.class);
+    private final WordSource source;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final Map<Key, Reserve> reserves = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService refiller = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "word-pool-refill-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refills = new AtomicLong();
+    private final AtomicLong totalRefillMs = new AtomicLong();
+    private volatile long lastRefillMs;
+
+    public WordPool(WordSource source, int lowWatermark, int highWatermark) {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("Invalid watermarks " + lowWatermark + "/" + highWatermark);
+        }
+        this.source = source;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+    }
+
+    /**
+     * Takes distinct words from the reserve of the language and theme. Never blocks, if the reserve has
+     * too few words nothing is taken and the reserve is refilled for the next call.
+     */
+    public Optional<List<String>> draw(GameLanguage language, String theme, int count) {
+        Reserve reserve = reserves.computeIfAbsent(Key.of(language, theme), Reserve::new);
+        List<String> words = reserve.take(count);
+        if (words != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        if (reserve.size() < lowWatermark || words == null) {
+            reserve.refillInBackground();
+        }
+        return Optional.ofNullable(words);
+    }
+
+    /**
+     * Takes words like {@link #draw}, without counting a hit or miss and without refilling.
+     */
+    Optional<List<String>> take(GameLanguage language, String theme, int count) {
+        Reserve reserve = reserves.get(Key.of(language, theme));
+        return Optional.ofNullable(reserve != null ? reserve.take(count) : null);
+    }
+
+    /**
+     * Adds words that were fetched anyway, e.g. the rest of a board request, to the reserve.
+     */
+    public void offer(GameLanguage language, String theme, List<String> words) {
+        reserves.computeIfAbsent(Key.of(language, theme), Reserve::new).add(words);
+    }
+
+    public int getReserveSize(GameLanguage language, String theme) {
+        Reserve reserve = reserves.get(Key.of(language, theme));
+        return reserve != null ? reserve.size() : 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public long getRefills() {
+        return refills.get();
+    }
+
+    public long getLastRefillMs() {
+        return lastRefillMs;
+    }
+
+    public long getAverageRefillMs() {
+        long count = refills.get();
+        return count == 0 ? 0 : totalRefillMs.get() / count;
+    }
+
+    public void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    /**
+     * Themes that only differ in case or surrounding whitespace share a reserve, "default" means no theme.
+     */
+    static String normalizeTheme(String theme) {
+        if (theme == null || theme.isBlank() || theme.trim().equalsIgnoreCase("default")) {
+            return null;
+        }
+        return theme.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isValid(String word) {
+        return word.length() <= MAX_WORD_LENGTH && VALID_WORD.matcher(word).matches();
+    }
+
+    private final class Reserve {
+
+        private final Key key;
+        private final Set<String> words = new LinkedHashSet<>();
+        // oldest first
+        private final Set<String> recent = new LinkedHashSet<>();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        private Reserve(Key key) {
+            this.key = key;
+        }
+
+        private synchronized List<String> take(int count) {
+            if (words.size() < count) {
+                return null;
+            }
+            List<String> taken = new ArrayList<>(count);
+            Iterator<String> iterator = words.iterator();
+            while (taken.size() < count) {
+                String word = iterator.next();
+                iterator.remove();
+                taken.add(word);
+                remember(word);
+            }
+            return taken;
+        }
+
+        private synchronized int add(List<String> fetched) {
+            int added = 0;
+            for (String word : fetched) {
+                if (words.size() >= highWatermark) {
+                    break;
+                }
+                String normalized = word.trim().toUpperCase();
+                if (isValid(normalized) && !recent.contains(normalized) && words.add(normalized)) {
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        private void remember(String word) {
+            recent.add(word);
+            if (recent.size() > RECENT_WORDS) {
+                Iterator<String> oldest = recent.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        private synchronized int size() {
+            return words.size();
+        }
+
+        private void refillInBackground() {
+            if (refilling.compareAndSet(false, true)) {
+                refiller.execute(this::refill);
+            }
+        }
+
+        private void refill() {
+            long start = System.nanoTime();
+            try {
+                for (int i = 0; i < MAX_REFILL_REQUESTS && size() < highWatermark; i++) {
+                    int count = Math.min(BATCH_SIZE, highWatermark - size());
+                    List<String> fetched = source.fetch(key.theme, key.language, count);
+                    if (add(fetched) == 0) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to refill word pool for {} / {}: {}", key.language, key.theme, e.getMessage());
+            } finally {
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                lastRefillMs = elapsedMs;
+                totalRefillMs.addAndGet(elapsedMs);
+                refills.incrementAndGet();
+                refilling.set(false);
+                log.info("Refilled word pool {} to {} words in {} ms (average {} ms), hit rate {}%", key, size(),
+                    elapsedMs, getAverageRefillMs(), Math.round(getHitRate() * 100));
+            }
+        }
+    }
+
+    /**
+     * Language and normalized theme.
+     */
+    static final class Key {
+
+        final GameLanguage language;
+        final String theme;
+
+        private Key(GameLanguage language, String theme) {
+            this.language = language;
+            this.theme = theme;
+        }
+
+        static Key of(GameLanguage language, String theme) {
+            return new Key(language, normalizeTheme(theme));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return language == other.language && Objects.equals(theme, other.theme);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(language, theme);
+        }
+
+        @Override
+        public String toString() {
+            return language + (theme != null ? "/" + theme : "");
+        }
+    }
+}
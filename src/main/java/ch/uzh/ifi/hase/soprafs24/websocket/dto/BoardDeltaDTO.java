@@ -0,0 +1,52 @@
+package ch.uzh.ifi.hase.soprafs24.websocket.dto;
+
+import java.util.List;
+
+/**
+ * Cards changed since the previous board message. A client that sees a gap in {@code seq}
+ * has missed a message and has to fetch a new snapshot.
+ */
+public class BoardDeltaDTO {
+
+    private final String type = "DELTA";
+    private long seq;
+    private List<CardChangeDTO> changes;
+    private Integer guessesLeft;
+
+    public BoardDeltaDTO(long seq, List<CardChangeDTO> changes, Integer guessesLeft) {
+        this.seq = seq;
+        this.changes = changes;
+        this.guessesLeft = guessesLeft;
+    }
+
+    public BoardDeltaDTO() {
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public List<CardChangeDTO> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<CardChangeDTO> changes) {
+        this.changes = changes;
+    }
+
+    public Integer getGuessesLeft() {
+        return guessesLeft;
+    }
+
+    public void setGuessesLeft(Integer guessesLeft) {
+        this.guessesLeft = guessesLeft;
+    }
+}
@@ -0,0 +1,53 @@
+package ch.uzh.ifi.hase.soprafs24.websocket.dto;
+
+import java.util.List;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Card;
+
+/**
+ * Full board state. Deltas with a {@code seq} greater than the one of the snapshot apply on top of it.
+ */
+public class BoardSnapshotDTO {
+
+    private final String type = "SNAPSHOT";
+    private long seq;
+    private List<Card> board;
+    private Integer guessesLeft;
+
+    public BoardSnapshotDTO(long seq, List<Card> board, Integer guessesLeft) {
+        this.seq = seq;
+        this.board = board;
+        this.guessesLeft = guessesLeft;
+    }
+
+    public BoardSnapshotDTO() {
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public List<Card> getBoard() {
+        return board;
+    }
+
+    public void setBoard(List<Card> board) {
+        this.board = board;
+    }
+
+    public Integer getGuessesLeft() {
+        return guessesLeft;
+    }
+
+    public void setGuessesLeft(Integer guessesLeft) {
+        this.guessesLeft = guessesLeft;
+    }
+}
@@ -0,0 +1,54 @@
+package ch.uzh.ifi.hase.soprafs24.websocket.dto;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+
+public class CardChangeDTO {
+
+    private int index;
+    private boolean guessed;
+    private boolean selected;
+    // only revealed once the card has been guessed
+    private CardColor color;
+
+    public CardChangeDTO(int index, boolean guessed, boolean selected, CardColor color) {
+        this.index = index;
+        this.guessed = guessed;
+        this.selected = selected;
+        this.color = color;
+    }
+
+    public CardChangeDTO() {
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isGuessed() {
+        return guessed;
+    }
+
+    public void setGuessed(boolean guessed) {
+        this.guessed = guessed;
+    }
+
+    public boolean isSelected() {
+        return selected;
+    }
+
+    public void setSelected(boolean selected) {
+        this.selected = selected;
+    }
+
+    public CardColor getColor() {
+        return color;
+    }
+
+    public void setColor(CardColor color) {
+        this.color = color;
+    }
+}
@@ -1,11 +1,13 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
 import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
 import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
 import ch.uzh.ifi.hase.soprafs24.entity.Card;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameStartDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GiveHintDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.makeGuessDTO;
@@ -13,6 +15,7 @@ import ch.uzh.ifi.hase.soprafs24.service.GameService;
 import ch.uzh.ifi.hase.soprafs24.service.UserService;
 import ch.uzh.ifi.hase.soprafs24.service.WebsocketService;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.SelectWordDTO;
+import ch.uzh.ifi.hase.soprafs24.websocket.dto.BoardSnapshotDTO;
 
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -22,12 +25,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -35,12 +40,15 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -159,24 +167,66 @@ public class GameControllerTest {
             gameStartDTO.setGameMode(GameMode.CLASSIC);
             gameStartDTO.setTheme("default");
             
-            Game mockGame = new Game();
+            GameGetDTO mockGame = new GameGetDTO();
             mockGame.setId(1L);
             mockGame.setStartingTeam(TeamColor.RED);
             mockGame.setGameMode(GameMode.CLASSIC);
             
             // Configure mocks
-            when(gameService.startOrGetGame(1L, TeamColor.RED, GameMode.CLASSIC))
-                .thenReturn(mockGame);
+            when(gameService.startOrGetGameViewAsync(1L, TeamColor.RED, GameMode.CLASSIC, false))
+                .thenReturn(CompletableFuture.completedFuture(mockGame));
             
             // Perform the request
-            mockMvc.perform(post("/game/1/start")
+            MvcResult result = mockMvc.perform(post("/game/1/start")
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(asJsonString(gameStartDTO)))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.id").value(1))
                     .andExpect(jsonPath("$.startingTeam").value("RED"))
                     .andExpect(jsonPath("$.gameMode").value("CLASSIC"));
         }
+
+        @Test
+        public void startGame_operative_receivesNoColors() throws Exception {
+            GameStartDTO gameStartDTO = new GameStartDTO();
+            gameStartDTO.setStartingTeam(TeamColor.RED);
+            gameStartDTO.setGameMode(GameMode.CLASSIC);
+
+            User operative = new User();
+            operative.setId(3L);
+            when(userService.extractToken("Bearer valid-token")).thenReturn("valid-token");
+            when(userService.validateToken("valid-token")).thenReturn(operative);
+            when(gameService.isSpymaster(operative, 1L)).thenReturn(false);
+
+            Card hidden = new Card("apple", null);
+            Card guessed = new Card("banana", CardColor.BLUE);
+            guessed.setGuessed(true);
+            GameGetDTO view = new GameGetDTO();
+            view.setId(1L);
+            view.setBoard(List.of(hidden, guessed));
+            when(gameService.startOrGetGameViewAsync(1L, TeamColor.RED, GameMode.CLASSIC, false))
+                .thenReturn(CompletableFuture.completedFuture(view));
+
+            MvcResult result = mockMvc.perform(post("/game/1/start")
+                    .header("Authorization", "Bearer valid-token")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(gameStartDTO)))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.board[0].word").value("apple"))
+                    .andExpect(jsonPath("$.board[0].color").doesNotExist())
+                    .andExpect(jsonPath("$.board[1].color").value("BLUE"));
+
+            verify(gameService).startOrGetGameViewAsync(1L, TeamColor.RED, GameMode.CLASSIC, false);
+            verify(gameService, never()).startOrGetGameViewAsync(1L, TeamColor.RED, GameMode.CLASSIC, true);
+        }
     }
     
     @Nested
@@ -194,7 +244,7 @@ public class GameControllerTest {
             mockCards.add(card2);
             
             // Configure mocks
-            when(gameService.getBoard(1L)).thenReturn(mockCards);
+            when(gameService.getBoardJson(1L, false)).thenReturn(asJsonString(mockCards).getBytes());
             
             // Perform the request
             mockMvc.perform(get("/game/1/board"))
@@ -204,13 +254,59 @@ public class GameControllerTest {
                     .andExpect(jsonPath("$[1].word").value("banana"));
             
             // Verify that service method was called correctly
-            verify(gameService).getBoard(1L);
+            verify(gameService).getBoardJson(1L, false);
         }
         
+        @Test
+        public void getBoardSnapshot_returnsBoardWithSequence() throws Exception {
+            Card card = new Card("apple", CardColor.RED);
+            byte[] snapshot = asJsonString(new BoardSnapshotDTO(7L, List.of(card), 2)).getBytes();
+            when(gameService.getBoardSnapshotJson(1L, false)).thenReturn(snapshot);
+
+            mockMvc.perform(get("/game/1/board/snapshot"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.type").value("SNAPSHOT"))
+                    .andExpect(jsonPath("$.seq").value(7))
+                    .andExpect(jsonPath("$.board[0].word").value("apple"))
+                    .andExpect(jsonPath("$.guessesLeft").value(2));
+        }
+
+        @Test
+        public void getBoard_spymaster_returnsSpymasterView() throws Exception {
+            User spymaster = new User();
+            spymaster.setId(2L);
+            when(userService.extractToken("Bearer valid-token")).thenReturn("valid-token");
+            when(userService.validateToken("valid-token")).thenReturn(spymaster);
+            when(gameService.isSpymaster(spymaster, 1L)).thenReturn(true);
+            when(gameService.getBoardJson(1L, true)).thenReturn("[]".getBytes());
+
+            mockMvc.perform(get("/game/1/board").header("Authorization", "Bearer valid-token"))
+                    .andExpect(status().isOk());
+
+            verify(gameService).getBoardJson(1L, true);
+        }
+
+        @Test
+        public void getBoard_spymasterOfOtherGame_returnsOperativeView() throws Exception {
+            User spymaster = new User();
+            spymaster.setId(2L);
+            when(userService.extractToken("Bearer valid-token")).thenReturn("valid-token");
+            when(userService.validateToken("valid-token")).thenReturn(spymaster);
+            when(gameService.isSpymaster(spymaster, 2L)).thenReturn(true);
+            when(gameService.isSpymaster(spymaster, 1L)).thenReturn(false);
+            when(gameService.getBoardJson(1L, false)).thenReturn("[]".getBytes());
+
+            mockMvc.perform(get("/game/1/board").header("Authorization", "Bearer valid-token"))
+                    .andExpect(status().isOk());
+
+            verify(gameService).isSpymaster(spymaster, 1L);
+            verify(gameService, never()).getBoardJson(1L, true);
+        }
+
         @Test
         public void getBoard_gameNotFound_returns404() throws Exception {
             // Configure mocks
-            when(gameService.getBoard(1L))
+            when(gameService.getBoardJson(1L, false))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
             
             // Perform the request
@@ -355,17 +451,10 @@ public class GameControllerTest {
             User user = new User();
             user.setId(1L);
 
-            List<Card> mockBoard = new ArrayList<>();
-            Card card = new Card();
-            card.setWord("apple");
-            mockBoard.add(card);
-
             when(userService.extractToken("Bearer valid-token")).thenReturn("valid-token");
             when(userService.validateToken("valid-token")).thenReturn(user);
             doNothing().when(gameService).checkIfUserIsFieldOperative(user.getId(), TeamColor.RED);
             doNothing().when(gameService).selectWord(1L, selectWordDTO);
-            when(gameService.getBoard(1L)).thenReturn(mockBoard);
-            when(gameService.getRemainingGuesses(1L)).thenReturn(2);
 
             mockMvc.perform(put("/game/1/selectWord")
                             .header("Authorization", "Bearer valid-token")
@@ -373,7 +462,8 @@ public class GameControllerTest {
                             .content(asJsonString(selectWordDTO)))
                     .andExpect(status().isNoContent());
 
-            verify(webSocketService).sendMessage(eq("/topic/game/1/board"), any(Map.class));
+            verify(gameService).selectWord(eq(1L), any(SelectWordDTO.class));
+            verify(gameService, never()).publishBoardUpdate(anyLong()); // selection updates are sent by the service
         }
 
         @Test
@@ -0,0 +1,74 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardKernelTest {
+
+    private List<Card> cards;
+    private BoardKernel kernel;
+
+    @BeforeEach
+    public void setup() {
+        cards = List.of(
+                new Card("APPLE", CardColor.RED),
+                new Card("BANANA", CardColor.RED),
+                new Card("CHERRY", CardColor.BLUE),
+                new Card("DOG", CardColor.NEUTRAL),
+                new Card("CAT", CardColor.BLACK));
+        kernel = BoardKernel.of(cards);
+    }
+
+    @Test
+    public void indexOf_ignoresCaseAndWhitespace() {
+        assertEquals(0, kernel.indexOf("apple"));
+        assertEquals(2, kernel.indexOf(" Cherry "));
+        assertEquals(-1, kernel.indexOf("UNKNOWN"));
+    }
+
+    @Test
+    public void colorAt_returnsCardColor() {
+        assertEquals(CardColor.RED, kernel.colorAt(1));
+        assertEquals(CardColor.NEUTRAL, kernel.colorAt(3));
+        assertEquals(CardColor.BLACK, kernel.colorAt(4));
+    }
+
+    @Test
+    public void remaining_countsUnguessedCardsOfColor() {
+        assertEquals(2, kernel.remaining(CardColor.RED));
+
+        kernel.markGuessed(0);
+
+        assertEquals(1, kernel.remaining(CardColor.RED));
+        assertEquals(1, kernel.remaining(CardColor.BLUE));
+    }
+
+    @Test
+    public void clearSelection_resetsAllSelectedCards() {
+        kernel.setSelected(1, true);
+        kernel.setSelected(2, true);
+
+        kernel.clearSelection();
+
+        assertFalse(kernel.isSelected(1));
+        assertFalse(kernel.isSelected(2));
+    }
+
+    @Test
+    public void writeTo_materializesStateIntoCards() {
+        kernel.markGuessed(2);
+        kernel.setSelected(3, true);
+
+        kernel.writeTo(cards);
+
+        assertTrue(cards.get(2).isGuessed());
+        assertTrue(cards.get(3).isSelected());
+        assertFalse(cards.get(0).isGuessed());
+    }
+}
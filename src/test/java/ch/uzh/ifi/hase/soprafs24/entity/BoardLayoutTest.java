@@ -0,0 +1,96 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardLayoutTest {
+
+    private List<String> words;
+
+    @BeforeEach
+    public void setup() {
+        words = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            words.add("WORD" + i);
+        }
+    }
+
+    @Test
+    public void generate_sameSeed_sameBoard() {
+        List<Card> first = BoardLayout.generate(words, TeamColor.RED, 42L);
+        List<Card> second = BoardLayout.generate(new ArrayList<>(words), TeamColor.RED, 42L);
+
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getWord(), second.get(i).getWord());
+            assertEquals(first.get(i).getColor(), second.get(i).getColor());
+        }
+        assertNotEquals(words(first), words(BoardLayout.generate(words, TeamColor.RED, 43L)));
+    }
+
+    @Test
+    public void generate_colorsPerTeam_wordsUnchanged() {
+        List<String> drawn = new ArrayList<>(words);
+
+        List<Card> board = BoardLayout.generate(words, TeamColor.BLUE, 7L);
+
+        Map<CardColor, Long> colors = board.stream().collect(Collectors.groupingBy(Card::getColor, Collectors.counting()));
+        assertEquals(9L, colors.get(CardColor.BLUE));
+        assertEquals(8L, colors.get(CardColor.RED));
+        assertEquals(7L, colors.get(CardColor.NEUTRAL));
+        assertEquals(1L, colors.get(CardColor.BLACK));
+        assertEquals(new HashSet<>(words), new HashSet<>(words(board)));
+        assertEquals(drawn, words);
+    }
+
+    @Test
+    public void generate_moreWords_picksTwentyFive() {
+        words.add("EXTRA");
+
+        List<Card> board = BoardLayout.generate(words, TeamColor.RED, 1L);
+
+        assertEquals(25, board.size());
+        assertEquals(25, new HashSet<>(words(board)).size());
+    }
+
+    @Test
+    public void generate_tooFewWords_throws() {
+        assertThrows(IllegalArgumentException.class, () -> BoardLayout.generate(words.subList(0, 24), TeamColor.RED, 1L));
+    }
+
+    @Test
+    public void game_seededBoard_derivedAndRestoredFromSnapshot() {
+        Game game = new Game();
+        game.setId(1L);
+        game.setStartingTeam(TeamColor.RED);
+        game.setWords(words);
+        game.setBoardSeed(42L);
+        game.getKernel().markGuessed(5);
+
+        Game restored = GameSnapshot.of(game).toGame();
+
+        assertEquals(42L, restored.getBoardSeed());
+        assertEquals(1 << 5, restored.getGuessedMask());
+        Map<String, Card> cards = restored.getBoard().stream().collect(Collectors.toMap(Card::getWord, Function.identity()));
+        for (Card card : game.getBoard()) {
+            assertEquals(card.getColor(), cards.get(card.getWord()).getColor());
+            assertEquals(card.isGuessed(), cards.get(card.getWord()).isGuessed());
+        }
+        assertTrue(restored.getBoard().get(5).isGuessed());
+    }
+
+    private static List<String> words(List<Card> board) {
+        return board.stream().map(Card::getWord).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,91 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HintIndexTest {
+
+    @Test
+    public void matches_caseAccentsAndUmlauts_folded() {
+        HintIndex index = HintIndex.of(List.of("Straße", "Müller", "CAFÉ"), GameLanguage.GERMAN);
+
+        assertTrue(index.matches("strasse"));
+        assertTrue(index.matches("STRAẞE"));
+        assertTrue(index.matches("Mueller"));
+        assertTrue(index.matches("muller"));
+        assertTrue(index.matches("cafe"));
+        assertFalse(index.matches("Wald"));
+    }
+
+    @Test
+    public void matches_inflectedForms_perLanguage() {
+        assertTrue(HintIndex.of(List.of("HORSE"), GameLanguage.ENGLISH).matches("horses"));
+        assertTrue(HintIndex.of(List.of("JUMPING"), GameLanguage.ENGLISH).matches("jumped"));
+        assertTrue(HintIndex.of(List.of("HAUS"), GameLanguage.GERMAN).matches("Hauses"));
+        assertTrue(HintIndex.of(List.of("CHEVAL"), GameLanguage.FRENCH).matches("chevaux"));
+        assertTrue(HintIndex.of(List.of("AMICO"), GameLanguage.ITALIAN).matches("amici"));
+    }
+
+    @Test
+    public void matches_pluralOfOtherForm_matches() {
+        assertTrue(HintIndex.of(List.of("CASA"), GameLanguage.ITALIAN).matches("case"));
+        assertTrue(HintIndex.of(List.of("AMICI"), GameLanguage.ITALIAN).matches("amico"));
+        assertTrue(HintIndex.of(List.of("PARTY"), GameLanguage.ENGLISH).matches("parties"));
+        assertTrue(HintIndex.of(List.of("KIND"), GameLanguage.GERMAN).matches("Kinder"));
+    }
+
+    @Test
+    public void matches_differentWordWithCommonPrefix_allowed() {
+        assertFalse(HintIndex.of(List.of("CASA"), GameLanguage.ITALIAN).matches("caso"));
+        assertFalse(HintIndex.of(List.of("PORTA"), GameLanguage.ITALIAN).matches("porto"));
+        assertFalse(HintIndex.of(List.of("PART"), GameLanguage.ENGLISH).matches("party"));
+        assertFalse(HintIndex.of(List.of("PARTY"), GameLanguage.ENGLISH).matches("part"));
+        assertFalse(HintIndex.of(List.of("ARM"), GameLanguage.ENGLISH).matches("army"));
+        assertFalse(HintIndex.of(List.of("BAU"), GameLanguage.GERMAN).matches("Bauer"));
+        assertFalse(HintIndex.of(List.of("BAUER"), GameLanguage.GERMAN).matches("Bau"));
+    }
+
+    @Test
+    public void matches_shortOrUnrelatedWords_notStemmed() {
+        HintIndex index = HintIndex.of(List.of("BUS", "CARPET"), GameLanguage.ENGLISH);
+
+        assertFalse(index.matches("bu"));
+        assertFalse(index.matches("car"));
+        assertTrue(index.matches("bus"));
+    }
+
+    @Test
+    public void matches_withoutLanguage_onlyFoldedWords() {
+        HintIndex index = HintIndex.of(List.of("HORSE"), null);
+
+        assertTrue(index.matches("Horse"));
+        assertFalse(index.matches("horses"));
+    }
+
+    @Test
+    public void game_boardChanged_indexRebuilt() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            words.add("WORD" + i);
+        }
+        Game game = new Game();
+        game.setLanguage(GameLanguage.ENGLISH);
+        game.setStartingTeam(TeamColor.RED);
+        game.setWords(words);
+        game.setBoardSeed(42L);
+        assertTrue(game.getHintIndex().matches("word7"));
+
+        game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+
+        assertTrue(game.getHintIndex().matches("apples"));
+        assertFalse(game.getHintIndex().matches("word7"));
+    }
+}
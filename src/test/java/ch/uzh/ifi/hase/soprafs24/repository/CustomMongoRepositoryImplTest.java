@@ -0,0 +1,71 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.IdSequence;
+import ch.uzh.ifi.hase.soprafs24.entity.Player;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CustomMongoRepositoryImplTest {
+
+    private MongoOperations mongoOperations;
+    private CustomMongoRepositoryImpl<Player> repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        mongoOperations = mock(MongoOperations.class);
+        MongoEntityInformation<Player, Long> metadata = mock(MongoEntityInformation.class);
+        when(metadata.getCollectionName()).thenReturn("PLAYER");
+        when(metadata.getJavaType()).thenReturn(Player.class);
+        repository = new CustomMongoRepositoryImpl<>(metadata, mongoOperations);
+        when(mongoOperations.save(any(Player.class), eq("PLAYER"))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // the sequence is at 57, reserving a block moves it to 77
+        IdSequence synced = mock(IdSequence.class);
+        when(synced.getValue()).thenReturn(57L);
+        IdSequence reserved = mock(IdSequence.class);
+        when(reserved.getValue()).thenReturn(77L);
+        when(mongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(IdSequence.class)))
+            .thenReturn(synced, reserved);
+    }
+
+    @Test
+    public void save_withoutId_allocatesFromReservedBlock() {
+        Player first = repository.save(new Player());
+        Player second = repository.save(new Player());
+
+        assertEquals(58L, first.getId());
+        assertEquals(59L, second.getId());
+        verify(mongoOperations, times(2)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(IdSequence.class));
+    }
+
+    @Test
+    public void save_existingEntities_noSequenceWrites() {
+        repository.save(new Player(12L));
+        repository.save(new Player(40L));
+        repository.save(new Player(57L));
+
+        // only the sequence is read, once
+        verify(mongoOperations, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(IdSequence.class));
+        verify(mongoOperations, never()).upsert(any(Query.class), any(Update.class), eq(IdSequence.class));
+    }
+
+    @Test
+    public void save_idSetByHandAboveSequence_movesSequenceOnce() {
+        repository.save(new Player(100L));
+        repository.save(new Player(100L));
+
+        verify(mongoOperations, times(1)).upsert(any(Query.class), any(Update.class), eq(IdSequence.class));
+    }
+}
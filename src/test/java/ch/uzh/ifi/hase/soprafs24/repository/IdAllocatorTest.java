@@ -0,0 +1,137 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdAllocatorTest {
+
+    // stands in for the sequence document
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger reservations = new AtomicInteger();
+    private final AtomicInteger sequenceReads = new AtomicInteger();
+
+    @Test
+    public void nextId_withinBlock_servedFromMemory() {
+        IdAllocator allocator = allocator(20);
+
+        for (long expected = 1; expected <= 20; expected++) {
+            assertEquals(expected, allocator.nextId());
+        }
+        assertEquals(1, reservations.get());
+
+        assertEquals(21, allocator.nextId());
+        assertEquals(2, reservations.get());
+    }
+
+    @Test
+    public void nextId_existingIds_continuesAfterSequence() {
+        sequence.set(57);
+        IdAllocator allocator = allocator(10);
+
+        assertEquals(58, allocator.nextId());
+    }
+
+    @Test
+    public void nextId_twoServers_disjointBlocks() {
+        IdAllocator first = allocator(5);
+        IdAllocator second = allocator(5);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+        }
+
+        assertEquals(16, new HashSet<>(ids).size());
+        assertEquals(1, ids.get(0));
+        assertEquals(6, ids.get(1));
+    }
+
+    @Test
+    public void nextId_concurrentCalls_noDuplicates() throws Exception {
+        IdAllocator allocator = allocator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        ids.add(allocator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1000, ids.size());
+    }
+
+    @Test
+    public void markUsed_idInCurrentBlock_skipped() {
+        IdAllocator allocator = allocator(10);
+        assertEquals(1, allocator.nextId());
+
+        assertFalse(allocator.markUsed(4));
+
+        assertEquals(5, allocator.nextId());
+    }
+
+    @Test
+    public void markUsed_idAboveBlocks_syncOnce() {
+        IdAllocator allocator = allocator(10);
+        allocator.nextId();
+
+        assertTrue(allocator.markUsed(35));
+        // saved again, e.g. an update of the same document
+        assertFalse(allocator.markUsed(35));
+        assertFalse(allocator.markUsed(7));
+        assertTrue(allocator.markUsed(36));
+    }
+
+    @Test
+    public void markUsed_existingIdsAfterRestart_sequenceReadOnce() {
+        sequence.set(57);
+        IdAllocator allocator = allocator(10);
+
+        assertFalse(allocator.markUsed(12));
+        assertFalse(allocator.markUsed(57));
+        assertFalse(allocator.markUsed(40));
+
+        assertEquals(1, sequenceReads.get());
+        assertEquals(0, reservations.get());
+        assertTrue(allocator.markUsed(58));
+    }
+
+    @Test
+    public void constructor_invalidBlockSize_throws() {
+        assertThrows(IllegalArgumentException.class, () -> allocator(0));
+    }
+
+    private IdAllocator allocator(int blockSize) {
+        return new IdAllocator(blockSize, () -> {
+            reservations.incrementAndGet();
+            return sequence.addAndGet(blockSize);
+        }, () -> {
+            sequenceReads.incrementAndGet();
+            return sequence.get();
+        });
+    }
+}
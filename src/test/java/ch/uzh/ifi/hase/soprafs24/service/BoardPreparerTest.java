@@ -0,0 +1,139 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.entity.Lobby;
+import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.service.QuotaGovernor.Priority;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BoardPreparerTest {
+
+    private WordGenerationService wordGenerationService;
+    private BoardPreparer boardPreparer;
+    private Lobby lobby;
+    private List<String> words;
+
+    @BeforeEach
+    public void setup() {
+        wordGenerationService = mock(WordGenerationService.class);
+        boardPreparer = new BoardPreparer(wordGenerationService, new WordBank());
+
+        words = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            words.add("WORD" + i);
+        }
+        when(wordGenerationService.getWordsFromApiAsync(any(GameLanguage.class), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(words));
+        when(wordGenerationService.getWordsFromApiAsync(any(String.class), any(GameLanguage.class), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(words));
+
+        lobby = new Lobby();
+        lobby.setId(1L);
+        lobby.setGameMode(GameMode.TIMED);
+        lobby.setLanguage(GameLanguage.ENGLISH);
+        lobby.setTheme("default");
+        for (long id = 1; id <= BoardPreparer.PLAYER_THRESHOLD; id++) {
+            lobby.addPlayer(new Player(id));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        boardPreparer.shutdown();
+    }
+
+    @Test
+    public void takeOrGenerate_wordsPrepared_noNewRequest() {
+        boardPreparer.prepare(lobby);
+        verify(wordGenerationService, timeout(3000)).getWordsFromApiAsync(GameLanguage.ENGLISH, Priority.PREGENERATION);
+
+        List<String> result = boardPreparer.takeOrGenerate(lobby, "default", GameLanguage.ENGLISH);
+
+        assertEquals(words, result);
+        verify(wordGenerationService, times(1)).getWordsFromApiAsync(any(GameLanguage.class), any(Priority.class));
+    }
+
+    @Test
+    public void prepare_tooFewPlayers_nothingGenerated() {
+        boardPreparer.shutdown();
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        boardPreparer = new BoardPreparer(wordGenerationService, new WordBank(), executor);
+        lobby.setPlayers(new ArrayList<>(List.of(new Player(1L))));
+
+        boardPreparer.prepare(lobby);
+
+        verifyNoInteractions(executor);
+        verifyNoInteractions(wordGenerationService);
+    }
+
+    @Test
+    public void takeOrGenerate_settingChanged_generatesForNewSetting() {
+        boardPreparer.prepare(lobby);
+        lobby.setGameMode(GameMode.THEME);
+        lobby.setTheme("space");
+
+        List<String> result = boardPreparer.takeOrGenerate(lobby, "space", GameLanguage.ENGLISH);
+
+        assertEquals(words, result);
+        verify(wordGenerationService).getWordsFromApiAsync(eq("space"), eq(GameLanguage.ENGLISH), eq(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void takeOrGenerate_generationNotStarted_runsRightAway() {
+        boardPreparer.prepare(lobby);
+
+        // called before the preparation delay has passed
+        List<String> result = boardPreparer.takeOrGenerate(lobby, "default", GameLanguage.ENGLISH);
+
+        assertEquals(words, result);
+        verify(wordGenerationService, times(1)).getWordsFromApiAsync(GameLanguage.ENGLISH, Priority.INTERACTIVE);
+    }
+
+    @Test
+    public void takeOrGenerate_classic_usesWordBankWithoutRequest() {
+        lobby.setGameMode(GameMode.CLASSIC);
+
+        List<String> result = boardPreparer.takeOrGenerate(lobby, "default", GameLanguage.ENGLISH);
+
+        assertEquals(25, result.size());
+        assertEquals(25, new HashSet<>(result).size());
+        verifyNoInteractions(wordGenerationService);
+    }
+
+    @Test
+    public void takeOrGenerate_apiFails_filledFromWordBank() {
+        lobby.setGameMode(GameMode.THEME);
+        when(wordGenerationService.getWordsFromApiAsync(eq("space"), any(GameLanguage.class), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        List<String> result = boardPreparer.takeOrGenerate(lobby, "space", GameLanguage.GERMAN);
+
+        assertEquals(25, result.size());
+        assertEquals(25, new HashSet<>(result).size());
+    }
+
+    @Test
+    public void takeOrGenerate_customWordsAndApiFails_customWordsKept() {
+        lobby.setGameMode(GameMode.OWN_WORDS);
+        lobby.setCustomWords(List.of("custom1", "custom2"));
+        when(wordGenerationService.getWordsFromApiAsync(any(GameLanguage.class), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        List<String> result = boardPreparer.takeOrGenerate(lobby, "default", GameLanguage.FRENCH);
+
+        assertEquals(25, result.size());
+        assertEquals(List.of("CUSTOM1", "CUSTOM2"), result.subList(0, 2));
+        assertEquals(25, new HashSet<>(result).size());
+    }
+}
@@ -0,0 +1,149 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(6000);
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setup() {
+        breaker = new CircuitBreaker("test", 5000, 30000, now::get);
+    }
+
+    @Test
+    public void failures_aboveThreshold_opensAndRejects() {
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.tryAcquire().onFailure(FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    public void fewFailures_staysClosed() {
+        for (int i = 0; i < 10; i++) {
+            CircuitBreaker.Permit permit = breaker.tryAcquire();
+            if (i % 4 == 0) {
+                permit.onFailure(FAST);
+            } else {
+                permit.onSuccess(FAST);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void slowCalls_aboveThreshold_opens() {
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.tryAcquire().onSuccess(SLOW);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void openTimePassed_singleProbe_closesOnSuccess() {
+        open();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30000));
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertNotNull(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // only one probe at a time
+        assertNull(breaker.tryAcquire());
+
+        probe.onSuccess(FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void probeSucceeded_windowReset_singleFailureKeepsClosed() {
+        open();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30000));
+        breaker.tryAcquire().onSuccess(FAST);
+
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS - 1; i++) {
+            breaker.tryAcquire().onFailure(FAST);
+        }
+
+        // the failures before the breaker opened are not counted
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void halfOpen_callFromBeforeOpening_notTakenAsProbe() {
+        CircuitBreaker.Permit early = breaker.tryAcquire();
+        open();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30000));
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+
+        early.onSuccess(FAST);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+
+        probe.onSuccess(FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void probeReleased_nextCallerMayProbe() {
+        open();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30000));
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+
+        probe.release();
+        probe.onFailure(FAST);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void probeFails_opensAgain() {
+        open();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30000));
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+
+        probe.onFailure(FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void latencyPercentile_fromSuccessfulCalls() {
+        assertEquals(2000, breaker.getLatencyPercentileMs(0.95, 2000));
+
+        for (int i = 1; i <= 20; i++) {
+            breaker.tryAcquire().onSuccess(TimeUnit.MILLISECONDS.toNanos(i * 100));
+        }
+
+        assertEquals(1900, breaker.getLatencyPercentileMs(0.95, 2000));
+        assertEquals(1000, breaker.getLatencyPercentileMs(0.5, 2000));
+    }
+
+    private void open() {
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.tryAcquire().onFailure(FAST);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.Lobby;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ExpirySweeperTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private LobbyService lobbyService;
+
+    @Mock
+    private GameService gameService;
+
+    @Mock
+    private GameArchiver gameArchiver;
+
+    private ExpirySweeper expirySweeper;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        expirySweeper = new ExpirySweeper(mongoOperations, lobbyService, gameService, gameArchiver);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        expirySweeper.shutdown();
+    }
+
+    @Test
+    public void sweep_closesExpiredLobbiesAndDeletesExpiredGames() {
+        Lobby lobby = new Lobby();
+        lobby.setId(1L);
+        Game game = new Game();
+        game.setId(2L);
+        when(mongoOperations.find(any(Query.class), eq(Lobby.class))).thenReturn(List.of(lobby));
+        when(mongoOperations.find(any(Query.class), eq(Game.class))).thenReturn(List.of(game));
+
+        expirySweeper.sweep();
+
+        verify(lobbyService).closeLobby(1L);
+        verify(gameService).deleteGame(2L);
+        verify(gameArchiver, never()).archive(any(Game.class));
+    }
+
+    @Test
+    public void sweep_finishedGame_archivedBeforeDeletion() {
+        Game game = new Game();
+        game.setId(2L);
+        game.setStatus("finished");
+        when(mongoOperations.find(any(Query.class), eq(Game.class))).thenReturn(List.of(game));
+        when(gameArchiver.archive(game)).thenReturn(CompletableFuture.completedFuture(null));
+
+        expirySweeper.sweep();
+
+        InOrder inOrder = inOrder(gameArchiver, gameService);
+        inOrder.verify(gameArchiver).archive(game);
+        inOrder.verify(gameArchiver).flush();
+        inOrder.verify(gameService).deleteGame(2L);
+    }
+
+    @Test
+    public void sweep_archiveNotStored_gameKept() {
+        Game game = new Game();
+        game.setId(2L);
+        game.setStatus("finished");
+        when(mongoOperations.find(any(Query.class), eq(Game.class))).thenReturn(List.of(game));
+        // the insert failed, the archive stays queued
+        when(gameArchiver.archive(game)).thenReturn(new CompletableFuture<>());
+
+        expirySweeper.sweep();
+
+        verify(gameArchiver).flush();
+        verify(gameService, never()).deleteGame(2L);
+    }
+
+    @Test
+    public void sweep_closeFails_continuesWithNextLobby() {
+        Lobby first = new Lobby();
+        first.setId(1L);
+        Lobby second = new Lobby();
+        second.setId(2L);
+        when(mongoOperations.find(any(Query.class), eq(Lobby.class))).thenReturn(List.of(first, second));
+        doThrow(new RuntimeException("boom")).when(lobbyService).closeLobby(1L);
+
+        expirySweeper.sweep();
+
+        verify(lobbyService).closeLobby(2L);
+    }
+}
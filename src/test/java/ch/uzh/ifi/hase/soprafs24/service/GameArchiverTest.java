@@ -0,0 +1,157 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+import ch.uzh.ifi.hase.soprafs24.entity.Card;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameArchive;
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GameArchiverTest {
+
+    private MongoOperations mongoOperations;
+    private GameEventLog gameEventLog;
+    private GameArchiver gameArchiver;
+    private List<String> words;
+    private Game game;
+    private List<GameEvent> events;
+
+    @BeforeEach
+    public void setup() {
+        mongoOperations = mock(MongoOperations.class);
+        gameEventLog = mock(GameEventLog.class);
+        gameArchiver = new GameArchiver(mongoOperations, gameEventLog);
+
+        words = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            words.add("WORD" + i);
+        }
+        game = new Game();
+        game.setId(1L);
+        game.setInstanceId("game-1");
+        game.setStartingTeam(TeamColor.RED);
+        game.setGameMode(GameMode.CLASSIC);
+        game.setWords(words);
+        game.setBoardSeed(42L);
+        game.getKernel().markGuessed(3);
+        game.setStatus("finished");
+        game.setWinningTeam(TeamColor.BLUE);
+
+        events = new ArrayList<>();
+        events.add(GameEvent.boardCreated(42L, words, TeamColor.RED, GameMode.CLASSIC, GameLanguage.ENGLISH, 60));
+        events.add(GameEvent.hint(TeamColor.RED, "fruit", 2));
+        events.add(GameEvent.guess(game, TeamColor.RED, "WORD", 3));
+        when(gameEventLog.getEvents("game-1")).thenReturn(events);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gameArchiver.shutdown();
+    }
+
+    @Test
+    public void archive_rebuildsFinalBoardAndMoves() {
+        gameArchiver.archive(game);
+        gameArchiver.flush();
+
+        verify(mongoOperations).insert(argThat((Collection<GameArchive> archives) -> archives.size() == 1), eq(GameArchive.class));
+        GameArchive archive = GameArchive.of(game, events);
+        List<Card> board = GameArchiver.board(archive);
+        for (int i = 0; i < board.size(); i++) {
+            assertEquals(game.getBoard().get(i).getWord(), board.get(i).getWord());
+            assertEquals(game.getBoard().get(i).getColor(), board.get(i).getColor());
+            assertEquals(i == 3, board.get(i).isGuessed());
+        }
+
+        List<GameArchive.Move> moves = archive.getMoves();
+        assertEquals(2, moves.size()); // board creation is not archived
+        assertEquals(GameEventType.HINT, moves.get(0).getType());
+        assertEquals("fruit", moves.get(0).getHint());
+        assertEquals(2, moves.get(0).getWordCount());
+        assertEquals(GameEventType.GUESS, moves.get(1).getType());
+        assertEquals(3, moves.get(1).getIndex());
+        assertEquals(TeamColor.RED, moves.get(1).getTeam());
+    }
+
+    @Test
+    public void flush_leavesMoveLogToGameDeletion() {
+        gameArchiver.archive(game);
+        gameArchiver.flush();
+
+        verify(gameEventLog).getEvents("game-1");
+        verify(gameEventLog, never()).remove(anyString());
+    }
+
+    @Test
+    public void flush_insertFails_archiveKeptForNextFlush() {
+        doThrow(new RuntimeException("write failed")).when(mongoOperations).insert(anyCollection(), eq(GameArchive.class));
+        doThrow(new RuntimeException("write failed")).when(mongoOperations).insert(any(GameArchive.class));
+
+        CompletableFuture<Void> written = gameArchiver.archive(game);
+        gameArchiver.flush();
+        assertFalse(written.isDone());
+        doReturn(List.of()).when(mongoOperations).insert(anyCollection(), eq(GameArchive.class));
+        gameArchiver.flush();
+
+        verify(mongoOperations, times(2)).insert(argThat((Collection<GameArchive> archives) -> archives.size() == 1), eq(GameArchive.class));
+        assertTrue(written.isDone());
+    }
+
+    @Test
+    public void archive_largeWordCount_decodedUnchanged() {
+        GameArchive archive = GameArchive.of(game, List.of(GameEvent.hint(TeamColor.RED, "all", 200)));
+
+        assertEquals(200, archive.getMoves().get(0).getWordCount());
+    }
+
+    @Test
+    public void flush_batchPartlyWritten_neverOverwritesArchive() {
+        doThrow(new RuntimeException("write failed")).when(mongoOperations).insert(anyCollection(), eq(GameArchive.class));
+        doThrow(new DuplicateKeyException("exists")).when(mongoOperations).insert(any(GameArchive.class));
+
+        gameArchiver.archive(game);
+        gameArchiver.flush();
+        gameArchiver.flush();
+
+        verify(mongoOperations, times(1)).insert(anyCollection(), eq(GameArchive.class));
+        verify(mongoOperations, never()).save(any(GameArchive.class));
+    }
+
+    @Test
+    public void archive_twoGamesOfLobby_distinctArchives() {
+        Game next = new Game();
+        next.setId(1L);
+        next.setInstanceId("game-2");
+        next.setStartingTeam(TeamColor.BLUE);
+        next.setWords(words);
+        next.setBoardSeed(7L);
+
+        GameArchive first = GameArchive.of(game, events);
+        GameArchive second = GameArchive.of(next, List.of());
+
+        assertEquals(1L, first.getGameId());
+        assertEquals(1L, second.getGameId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+}
@@ -0,0 +1,154 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCommandMailboxTest {
+
+    private GameCommandMailbox mailbox;
+
+    @BeforeEach
+    public void setup() {
+        mailbox = new GameCommandMailbox();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mailbox.shutdown();
+    }
+
+    @Test
+    public void submit_sameGame_runsInOrder() {
+        List<Integer> executed = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            futures.add(mailbox.submit(1L, () -> {
+                executed.add(value);
+                return null;
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertEquals(100, executed.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    public void call_commandThrows_exceptionRethrownUnchanged() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                mailbox.call(1L, () -> {
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "It's not your turn");
+                }));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+
+    @Test
+    public void call_fromSameGame_runsInline() {
+        int result = mailbox.call(1L, () -> mailbox.call(1L, () -> 42));
+
+        assertEquals(42, result);
+    }
+
+    @Test
+    public void call_fromCommandOfOtherGame_fails() {
+        CompletableFuture<Integer> nested = mailbox.submit(1L, () -> mailbox.call(2L, () -> 42));
+
+        CompletionException exception = assertThrows(CompletionException.class, nested::join);
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void submit_fromCommandOfOtherGame_runsInOtherMailbox() throws Exception {
+        CompletableFuture<Integer> nested = mailbox.submit(1L, () -> 1)
+            .thenCompose(first -> mailbox.submit(2L, () -> first + 41));
+
+        assertEquals(42, nested.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void submit_commandsDone_mailboxDropped() throws Exception {
+        for (long gameId = 1; gameId <= 50; gameId++) {
+            mailbox.submit(gameId, () -> null).get(5, TimeUnit.SECONDS);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailbox.activeMailboxes() > 0 && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(0, mailbox.activeMailboxes());
+    }
+
+    @Test
+    public void submit_whileMailboxDropped_commandsOfOneGameNeverOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> rounds = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                rounds.add(submitters.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        // each command runs alone, so the mailbox is dropped and created again all the time
+                        mailbox.submit(1L, () -> {
+                            if (running.incrementAndGet() > 1) {
+                                overlapped.set(true);
+                            }
+                            running.decrementAndGet();
+                            return null;
+                        }).join();
+                    }
+                }));
+            }
+            for (Future<?> round : rounds) {
+                round.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            submitters.shutdownNow();
+        }
+
+        assertFalse(overlapped.get());
+    }
+
+    @Test
+    public void submit_differentGames_runInParallel() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        CompletableFuture<Boolean> first = mailbox.submit(1L, () -> awaitQuietly(bothRunning));
+        CompletableFuture<Boolean> second = mailbox.submit(2L, () -> awaitQuietly(bothRunning));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    private boolean awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+import ch.uzh.ifi.hase.soprafs24.entity.BoardLayout;
+import ch.uzh.ifi.hase.soprafs24.entity.Card;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
+import ch.uzh.ifi.hase.soprafs24.entity.GameSnapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GameEventLogTest {
+
+    private MongoOperations mongoOperations;
+    private GameEventLog gameEventLog;
+    private List<String> words;
+
+    @BeforeEach
+    public void setup() {
+        mongoOperations = mock(MongoOperations.class);
+        gameEventLog = new GameEventLog(mongoOperations);
+
+        words = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            words.add("WORD" + i);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gameEventLog.shutdown();
+    }
+
+    @Test
+    public void append_assignsSequenceAndWritesSnapshotAtInterval() {
+        Game game = new Game();
+        game.setId(1L);
+
+        for (int i = 0; i < GameEventLog.SNAPSHOT_INTERVAL; i++) {
+            gameEventLog.append(game, GameEvent.hint(TeamColor.RED, "fruit", 2));
+        }
+        gameEventLog.flush();
+
+        assertEquals(GameEventLog.SNAPSHOT_INTERVAL, game.getEventSeq());
+        verify(mongoOperations).insert(argThat((Collection<GameEvent> events) -> events.size() == GameEventLog.SNAPSHOT_INTERVAL), eq(GameEvent.class));
+        verify(mongoOperations).insert(argThat((Collection<GameSnapshot> snapshots) -> snapshots.size() == 1), eq(GameSnapshot.class));
+    }
+
+    @Test
+    public void append_secondGameOfLobby_ownLog() {
+        Game first = new Game();
+        first.setId(1L);
+        first.setInstanceId("first");
+        Game second = new Game();
+        second.setId(1L);
+        second.setInstanceId("second");
+        GameEvent firstEvent = GameEvent.hint(TeamColor.RED, "fruit", 2);
+        GameEvent secondEvent = GameEvent.hint(TeamColor.RED, "fruit", 2);
+
+        gameEventLog.append(first, firstEvent);
+        gameEventLog.append(second, secondEvent);
+
+        assertEquals(1L, firstEvent.getSeq());
+        assertEquals(1L, secondEvent.getSeq());
+        assertNotEquals(firstEvent.getId(), secondEvent.getId());
+        assertEquals("second", secondEvent.getInstanceId());
+    }
+
+    @Test
+    public void append_gameWithoutInstanceId_getsOne() {
+        Game game = new Game();
+        game.setId(1L);
+        GameEvent event = GameEvent.hint(TeamColor.RED, "fruit", 2);
+
+        gameEventLog.append(game, event);
+
+        assertNotNull(game.getInstanceId());
+        assertEquals(game.getInstanceId(), event.getInstanceId());
+    }
+
+    @Test
+    public void rebuild_withoutSnapshot_replaysAllEvents() {
+        List<GameEvent> events = recordGame();
+        when(mongoOperations.find(any(Query.class), eq(GameEvent.class))).thenReturn(events);
+
+        Game rebuilt = gameEventLog.rebuild("game-1").orElseThrow();
+
+        assertEquals(1L, rebuilt.getId());
+        assertEquals("game-1", rebuilt.getInstanceId());
+
+        List<Card> expectedBoard = BoardLayout.generate(words, TeamColor.RED, 42L);
+        assertEquals(expectedBoard.get(3).getWord(), rebuilt.getBoard().get(3).getWord());
+        assertEquals(expectedBoard.get(3).getColor(), rebuilt.getBoard().get(3).getColor());
+        assertTrue(rebuilt.getBoard().get(3).isGuessed());
+        assertEquals("ocean", rebuilt.getCurrentHint().getKey());
+        assertEquals(1, rebuilt.getGuessedInHint());
+        assertEquals(TeamColor.BLUE, rebuilt.getTeamTurn());
+        assertEquals(events.size(), rebuilt.getEventSeq());
+    }
+
+    @Test
+    public void rebuild_unknownGame_returnsEmpty() {
+        when(mongoOperations.find(any(Query.class), eq(GameEvent.class))).thenReturn(List.of());
+
+        assertTrue(gameEventLog.rebuild("unknown").isEmpty());
+    }
+
+    @Test
+    public void flush_batchFails_entriesWrittenOneByOne() {
+        Game game = new Game();
+        game.setId(1L);
+        when(mongoOperations.insert(anyCollection(), eq(GameEvent.class))).thenThrow(new RuntimeException("connection reset"));
+
+        gameEventLog.append(game, GameEvent.hint(TeamColor.RED, "fruit", 2));
+        gameEventLog.append(game, GameEvent.hint(TeamColor.RED, "tree", 1));
+        gameEventLog.flush();
+
+        verify(mongoOperations, times(2)).save(any(GameEvent.class));
+    }
+
+    /**
+     * Records a short game: board creation, a hint, a correct guess and a turn end.
+     */
+    private List<GameEvent> recordGame() {
+        Game game = new Game();
+        game.setId(1L);
+        GameEvent created = GameEvent.boardCreated(42L, new ArrayList<>(words), TeamColor.RED, GameMode.CLASSIC, GameLanguage.ENGLISH, 60);
+        created.setGameId(1L);
+        created.setSeq(1);
+        GameEventLog.apply(game, created);
+
+        List<GameEvent> events = new ArrayList<>();
+        events.add(created);
+
+        game.setCurrentHint("ocean", 2);
+        GameEvent hint = GameEvent.hint(TeamColor.RED, "ocean", 2);
+        hint.setSeq(2);
+        events.add(hint);
+
+        game.getKernel().markGuessed(3);
+        game.addGuessedInHint();
+        GameEvent guess = GameEvent.guess(game, TeamColor.RED, game.getBoard().get(3).getWord(), 3);
+        guess.setSeq(3);
+        events.add(guess);
+
+        game.setTeamTurn(TeamColor.BLUE);
+        GameEvent turnEnd = GameEvent.turnChange(GameEventType.TURN_END, TeamColor.RED, game);
+        turnEnd.setSeq(4);
+        events.add(turnEnd);
+        return events;
+    }
+}
@@ -2,6 +2,7 @@ package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.api.apiToken;
 import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
 import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
 import ch.uzh.ifi.hase.soprafs24.constant.GameMode;
 import ch.uzh.ifi.hase.soprafs24.constant.PlayerRole;
@@ -14,21 +15,34 @@ import ch.uzh.ifi.hase.soprafs24.entity.Team;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.repository.*;
 
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.SelectWordDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.makeGuessDTO;
+import ch.uzh.ifi.hase.soprafs24.websocket.dto.BoardDeltaDTO;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -53,7 +67,20 @@ public class GameServiceTest {
     @Mock
     private WebsocketService websocketService;
 
-    @InjectMocks
+    @Mock
+    private LobbyService lobbyService;
+
+    @Mock
+    private GameEventLog gameEventLog;
+
+    private GameCommandMailbox mailbox;
+
+    private GameStateStore gameStateStore;
+
+    private TurnTimerService turnTimerService;
+
+    private BoardPreparer boardPreparer;
+
     private GameService gameService;
 
     private Game game;
@@ -63,8 +90,16 @@ public class GameServiceTest {
     public void setup() {
         apiToken.isTestEnvironment = true; // Set to true for testing purposes
         MockitoAnnotations.openMocks(this);
+        mailbox = new GameCommandMailbox();
+        // no background flushes, the tests flush explicitly
+        gameStateStore = new GameStateStore(gameRepository, mailbox, gameEventLog, mock(ScheduledExecutorService.class));
+        turnTimerService = new TurnTimerService();
+        boardPreparer = new BoardPreparer(wordGenerationService, new WordBank());
+        gameService = new GameService(boardPreparer, gameStateStore, mailbox, gameEventLog, playerRepository, userRepository,
+                lobbyRepository, lobbyService, websocketService, turnTimerService);
 
         doNothing().when(websocketService).sendMessage(anyString(), any());
+        when(gameRepository.applyChanges(anyLong(), anyLong(), any(), any(), anyMap(), anyMap())).thenReturn(true);
         // Setup a dummy Game
         game = new Game();
         game.setId(1L);
@@ -78,6 +113,15 @@ public class GameServiceTest {
         lobby.setCustomWords(new ArrayList<>());
     }
 
+    @AfterEach
+    public void tearDown() {
+        gameService.shutdown();
+        turnTimerService.shutdown();
+        boardPreparer.shutdown();
+        gameStateStore.shutdown();
+        mailbox.shutdown();
+    }
+
     //start or get game 
     @Test
     public void startOrGetGame_existingGame_returnsGame() {
@@ -100,12 +144,12 @@ public class GameServiceTest {
             return g;
         });
 
-        when(wordGenerationService.getWordsFromApi(GameLanguage.GERMAN)).thenReturn(Arrays.asList(
+        when(wordGenerationService.getWordsFromApiAsync(GameLanguage.GERMAN, QuotaGovernor.Priority.INTERACTIVE)).thenReturn(CompletableFuture.completedFuture(Arrays.asList(
             "apple", "banana", "cherry", "dog", "cat", "tree", "house", "river",
             "car", "mountain", "bird", "school", "computer", "book", "phone",
             "chair", "sun", "moon", "star", "water", "pen", "desk", "cloud",
             "road", "train"
-        ));
+        )));
 
         Lobby dummyLobby = new Lobby();
         dummyLobby.setId(1L);
@@ -135,11 +179,11 @@ public class GameServiceTest {
         lobby.setCustomWords(Arrays.asList("custom1", "custom2"));
         lobby.setGameMode(GameMode.OWN_WORDS);
 
-        when(wordGenerationService.getWordsFromApi(GameLanguage.GERMAN)).thenReturn(Arrays.asList(
+        when(wordGenerationService.getWordsFromApiAsync(GameLanguage.GERMAN, QuotaGovernor.Priority.INTERACTIVE)).thenReturn(CompletableFuture.completedFuture(Arrays.asList(
             "word1", "word2", "word3", "word4", "word5", "word6", "word7", "word8",
             "word9", "word10", "word11", "word12", "word13", "word14", "word15", "word16",
             "word17", "word18", "word19", "word20", "word21", "word22", "word23", "word24", "word25"
-        ));
+        )));
 
         List<String> result = gameService.generateWords(game, "default", GameLanguage.GERMAN);
 
@@ -192,12 +236,176 @@ public class GameServiceTest {
             assertEquals(CardColor.BLUE, result.get(1).getColor());
         }
         
+        @Test
+        public void getBoard_returnsCopies() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            gameService.getBoard(1L).get(0).setGuessed(true);
+
+            assertFalse(game.getBoard().get(0).isGuessed());
+        }
+
         @Test
         public void getBoard_gameNotFound_throwsException() {
             when(gameRepository.findById(99L)).thenReturn(Optional.empty());
             
             assertThrows(ResponseStatusException.class, () -> gameService.getBoard(99L));
         }
+
+        @Test
+        public void publishBoardUpdate_sendsOnlyChangedCardsWithIncreasingSeq() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED), new Card("BANANA", CardColor.BLUE))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+            long start = game.getBoardSeq();
+
+            game.getKernel().setSelected(1, true);
+            gameService.publishBoardUpdate(1L);
+            gameService.publishBoardUpdate(1L); // nothing changed, nothing sent
+            game.getKernel().markGuessed(0);
+            gameService.publishBoardUpdate(1L);
+
+            ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+            verify(websocketService, times(2)).sendMessage(eq("/topic/game/1/board"), payloads.capture());
+            BoardDeltaDTO first = (BoardDeltaDTO) payloads.getAllValues().get(0);
+            BoardDeltaDTO second = (BoardDeltaDTO) payloads.getAllValues().get(1);
+
+            assertEquals(start + 1, first.getSeq());
+            assertEquals(1, first.getChanges().size());
+            assertEquals(1, first.getChanges().get(0).getIndex());
+            assertTrue(first.getChanges().get(0).isSelected());
+            assertNull(first.getChanges().get(0).getColor()); // not revealed before the card is guessed
+            assertNull(first.getGuessesLeft());
+            assertEquals(start + 2, second.getSeq());
+            assertEquals(0, second.getChanges().get(0).getIndex());
+            assertEquals(CardColor.RED, second.getChanges().get(0).getColor());
+        }
+
+        @Test
+        public void selectWord_severalToggles_coalescedIntoOneBroadcast() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED), new Card("BANANA", CardColor.BLUE))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+            long start = game.getBoardSeq();
+
+            SelectWordDTO apple = new SelectWordDTO();
+            apple.setWordStr("APPLE");
+            apple.setSelected(true);
+            SelectWordDTO banana = new SelectWordDTO();
+            banana.setWordStr("BANANA");
+            banana.setSelected(true);
+            gameService.selectWord(1L, apple);
+            gameService.selectWord(1L, banana);
+
+            ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+            verify(websocketService, timeout(2000).times(1)).sendMessage(eq("/topic/game/1/board"), payloads.capture());
+            BoardDeltaDTO delta = (BoardDeltaDTO) payloads.getValue();
+            assertEquals(start + 1, delta.getSeq());
+            assertEquals(2, delta.getChanges().size());
+        }
+
+        @Test
+        public void publishBoardUpdate_gameEvictedBeforeWrite_seqContinuesAfterReload() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED), new Card("BANANA", CardColor.BLUE))));
+            Game stored = new Game();
+            stored.setId(1L);
+            stored.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED), new Card("BANANA", CardColor.BLUE))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game), Optional.of(stored));
+
+            game.getKernel().setSelected(0, true);
+            gameService.publishBoardUpdate(1L);
+            gameStateStore.evict(1L); // the stored game does not have the message yet
+            gameService.getGameById(1L).getKernel().setSelected(1, true);
+            gameService.publishBoardUpdate(1L);
+
+            ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+            verify(websocketService, times(2)).sendMessage(eq("/topic/game/1/board"), payloads.capture());
+            long sent = ((BoardDeltaDTO) payloads.getAllValues().get(0)).getSeq();
+            long afterReload = ((BoardDeltaDTO) payloads.getAllValues().get(1)).getSeq();
+            assertEquals(sent + 1, afterReload);
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void publishBoardUpdate_seqWrittenWithNextWrite() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            game.getKernel().setSelected(0, true);
+            gameService.publishBoardUpdate(1L);
+            gameStateStore.flushDirty();
+            verify(gameRepository, never()).applyChanges(anyLong(), anyLong(), any(), any(), anyMap(), anyMap());
+            game.setCurrentHint("fruit", 2);
+            gameStateStore.markDirty(game);
+            gameStateStore.flushDirty();
+
+            ArgumentCaptor<Map<String, Object>> changes = ArgumentCaptor.forClass(Map.class);
+            verify(gameRepository).applyChanges(eq(1L), anyLong(), any(), any(), changes.capture(), any());
+            assertEquals(game.getBoardSeq(), changes.getValue().get("boardSeq"));
+        }
+
+        @Test
+        public void getBoardSnapshotJson_returnsBoardAndLastSeq() throws Exception {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            game.setCurrentHint("fruit", 2);
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+            gameService.publishBoardUpdate(1L);
+
+            JsonNode snapshot = new ObjectMapper().readTree(gameService.getBoardSnapshotJson(1L, true));
+
+            assertEquals("SNAPSHOT", snapshot.get("type").asText());
+            assertEquals(game.getBoardSeq(), snapshot.get("seq").asLong());
+            assertEquals("APPLE", snapshot.get("board").get(0).get("word").asText());
+            assertEquals(2, snapshot.get("guessesLeft").asInt());
+        }
+
+        @Test
+        public void getBoardJson_operativeView_hidesColorsOfUnguessedCards() throws Exception {
+            Card guessed = new Card("APPLE", CardColor.RED);
+            guessed.setGuessed(true);
+            game.setBoard(new ArrayList<>(List.of(guessed, new Card("BANANA", CardColor.BLUE))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            JsonNode operative = new ObjectMapper().readTree(gameService.getBoardJson(1L, false));
+            JsonNode spymaster = new ObjectMapper().readTree(gameService.getBoardJson(1L, true));
+
+            assertEquals("RED", operative.get(0).get("color").asText());
+            assertTrue(operative.get(1).get("color").isNull());
+            assertEquals("BLUE", spymaster.get(1).get("color").asText());
+        }
+
+        @Test
+        public void startOrGetGameView_operative_hidesColorsOfUnguessedCards() {
+            Card guessed = new Card("APPLE", CardColor.RED);
+            guessed.setGuessed(true);
+            game.setBoard(new ArrayList<>(List.of(guessed, new Card("BANANA", CardColor.BLUE))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            GameGetDTO operative = gameService.startOrGetGameViewAsync(1L, TeamColor.RED, GameMode.CLASSIC, false).join();
+            GameGetDTO spymaster = gameService.startOrGetGameViewAsync(1L, TeamColor.RED, GameMode.CLASSIC, true).join();
+
+            assertEquals(1L, operative.getId());
+            assertEquals(CardColor.RED, operative.getBoard().get(0).getColor());
+            assertNull(operative.getBoard().get(1).getColor());
+            assertEquals(CardColor.BLUE, spymaster.getBoard().get(1).getColor());
+        }
+
+        @Test
+        public void getBoardJson_unchangedBoard_reusesSerializedView() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            byte[] first = gameService.getBoardJson(1L, false);
+            byte[] second = gameService.getBoardJson(1L, false);
+
+            assertSame(first, second);
+
+            SelectWordDTO dto = new SelectWordDTO();
+            dto.setWordStr("APPLE");
+            dto.setSelected(true);
+            gameService.selectWord(1L, dto);
+
+            assertNotSame(first, gameService.getBoardJson(1L, false));
+        }
     }
     
     @Nested
@@ -219,6 +427,40 @@ public class GameServiceTest {
             verify(playerRepository).findById(1L);
         }
         
+        @Test
+        public void isSpymaster_spymasterOfLobby_true() {
+            User user = new User();
+            user.setId(1L);
+            Team redTeam = new Team();
+            redTeam.setId(10L);
+            lobby.setRedTeam(redTeam);
+            Player player = new Player(1L);
+            player.setRole(PlayerRole.SPYMASTER);
+            player.setTeam(redTeam);
+            when(playerRepository.findById(1L)).thenReturn(Optional.of(player));
+            when(lobbyRepository.findById(1L)).thenReturn(Optional.of(lobby));
+
+            assertTrue(gameService.isSpymaster(user, 1L));
+        }
+
+        @Test
+        public void isSpymaster_spymasterOfOtherLobby_false() {
+            User user = new User();
+            user.setId(1L);
+            Team otherTeam = new Team();
+            otherTeam.setId(20L);
+            Team redTeam = new Team();
+            redTeam.setId(10L);
+            lobby.setRedTeam(redTeam);
+            Player player = new Player(1L);
+            player.setRole(PlayerRole.SPYMASTER);
+            player.setTeam(otherTeam);
+            when(playerRepository.findById(1L)).thenReturn(Optional.of(player));
+            when(lobbyRepository.findById(1L)).thenReturn(Optional.of(lobby));
+
+            assertFalse(gameService.isSpymaster(user, 1L));
+        }
+
         @Test
         public void checkIfUserSpymaster_notSpymaster_throwsException() {
             User user = new User();
@@ -259,12 +501,33 @@ public class GameServiceTest {
             when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
             
             gameService.validateHint("forest", 3, 1L);
+            gameStateStore.flushDirty();
             
             assertEquals("forest", game.getCurrentHint().getKey());
             assertEquals(3, game.getCurrentHint().getValue());
-            verify(gameRepository).save(game);
+            verify(gameRepository).applyChanges(eq(1L), eq(0L), any(), any(), argThat(changes -> "forest".equals(changes.get("currentHint"))), anyMap());
+            verify(gameRepository, never()).save(game);
+            verify(gameEventLog).append(eq(game), argThat(event -> event.getType() == GameEventType.HINT && "forest".equals(event.getHint())));
+            verify(websocketService).sendMessage(eq("/topic/game/1/board"), argThat(payload ->
+                payload instanceof BoardDeltaDTO && Integer.valueOf(3).equals(((BoardDeltaDTO) payload).getGuessesLeft())));
         }
         
+        @Test
+        public void validateHint_formOfBoardWord_throwsException() {
+            Game game = new Game();
+            game.setId(1L);
+            game.setLanguage(GameLanguage.GERMAN);
+            game.setBoard(new ArrayList<>(List.of(new Card("Straße", CardColor.RED))));
+            game.setWords(new ArrayList<>(List.of("Straße")));
+
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> gameService.validateHint("STRASSEN", 3, 1L));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+            assertNull(game.getCurrentHint());
+        }
+
         @Test
         public void validateHint_emptyHint_throwsException() {
             ResponseStatusException exception = assertThrows(ResponseStatusException.class, 
@@ -289,6 +552,14 @@ public class GameServiceTest {
             assertEquals("Word count must be at least 1", exception.getReason());
         }
         
+        @Test
+        public void validateHint_wordCountAboveBoard_throwsException() {
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> gameService.validateHint("forest", 200, 1L));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+            verify(gameEventLog, never()).append(any(), any());
+        }
+
         @Test
         public void validateHint_gameNotFound_throwsException() {
             when(gameRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -378,10 +649,11 @@ public class GameServiceTest {
             Map.Entry<Boolean, TeamColor> result = gameService.makeGuess(1L, TeamColor.RED, "APPLE", new User());
 
             // Assert
+            Card guessedCard = gameService.getBoard(1L).get(0);
             assertFalse(result.getKey()); // Game should not be over
             assertEquals(TeamColor.BLUE, result.getValue()); // Turn switched
-            assertFalse(redCard.isSelected()); // Selection cleared
-            assertTrue(redCard.isGuessed()); // Card was guessed
+            assertFalse(guessedCard.isSelected()); // Selection cleared
+            assertTrue(guessedCard.isGuessed()); // Card was guessed
             assertEquals(2, game.getGuessedInHint()); // Hint limit reached
             assertEquals(TeamColor.BLUE, game.getTeamTurn()); // Team changed
         }
@@ -411,7 +683,7 @@ public class GameServiceTest {
             // Verify results
             assertFalse(result.getKey()); // Game not over
             assertEquals(TeamColor.BLUE, result.getValue()); // Turn switched to BLUE team
-            assertTrue(blueCard.isGuessed()); // Card marked as guessed
+            assertTrue(gameService.getBoard(1L).get(0).isGuessed()); // Card marked as guessed
             assertEquals(TeamColor.BLUE, game.getTeamTurn()); // Team turn updated
         }
 
@@ -453,8 +725,48 @@ public class GameServiceTest {
             assertTrue(blackCard.isGuessed());
             assertEquals("finished", game.getStatus());
             assertEquals(TeamColor.BLUE, game.getWinningTeam());
+            assertTrue(game.getExpiresAt().isBefore(Instant.now().plusSeconds(60))); // removed shortly after the end
             verify(userRepository).save(user);
         }
+
+        @Test
+        public void validateHint_gameAboutToExpire_expiryPushedForward() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            game.setTeamTurn(TeamColor.RED);
+            game.setStatus("playing");
+            game.setExpiresAt(Instant.now().plusSeconds(60));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            gameService.validateHint("fruit", 1, 1L);
+
+            assertTrue(game.getExpiresAt().isAfter(Instant.now().plus(GameService.GAME_TIMEOUT).minusSeconds(5)));
+            verify(lobbyService).extendStartedLobby(1L);
+        }
+
+        @Test
+        public void validateHint_expiryRecentlyPushed_notRewritten() {
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            game.setTeamTurn(TeamColor.RED);
+            game.setStatus("playing");
+            Instant expiresAt = Instant.now().plus(GameService.GAME_TIMEOUT);
+            game.setExpiresAt(expiresAt);
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            gameService.validateHint("fruit", 1, 1L);
+
+            assertEquals(expiresAt, game.getExpiresAt());
+            verify(lobbyService, never()).extendStartedLobby(anyLong());
+        }
+
+        @Test
+        public void deleteGame_removesGameFromStoreAndDatabase() {
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+            gameService.getGameById(1L);
+
+            gameService.deleteGame(1L);
+
+            verify(gameRepository).deleteById(1L);
+        }
         
         @Test
         public void makeGuess_neutralCard_switchesTurn() {
@@ -479,7 +791,7 @@ public class GameServiceTest {
             // Verify results
             assertFalse(result.getKey()); // Game not over
             assertEquals(TeamColor.BLUE, result.getValue()); // Turn switched to BLUE team
-            assertTrue(neutralCard.isGuessed()); // Card marked as guessed
+            assertTrue(gameService.getBoard(1L).get(0).isGuessed()); // Card marked as guessed
         }
 
         @Test
@@ -724,10 +1036,35 @@ public class GameServiceTest {
         when(lobbyRepository.findById(1L)).thenReturn(Optional.of(lobby));
 
         gameService.endTurn(1L, user);
+        gameStateStore.flushDirty();
 
         assertEquals(TeamColor.BLUE, game.getTeamTurn());
         assertEquals(0, game.getGuessedInHint());
-        verify(gameRepository).save(game);
+        verify(gameRepository).applyChanges(eq(1L), eq(0L), any(), any(), argThat(changes -> changes.get("teamTurn") == TeamColor.BLUE), anyMap());
+        verify(gameRepository, never()).save(game);
+    }
+
+    @Test
+    public void endTurn_selectedCard_publishesClearedSelection() {
+        Game game = new Game();
+        game.setId(1L);
+        game.setTeamTurn(TeamColor.RED);
+        game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED), new Card("BANANA", CardColor.BLUE))));
+        game.getKernel().setSelected(1, true);
+        game.getKernel().markPublished();
+        User user = new User();
+        user.setId(1L);
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(playerRepository.findById(1L)).thenReturn(Optional.of(new Player()));
+
+        gameService.endTurn(1L, user);
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(websocketService).sendMessage(eq("/topic/game/1/board"), payloads.capture());
+        BoardDeltaDTO delta = (BoardDeltaDTO) payloads.getValue();
+        assertEquals(1, delta.getChanges().size());
+        assertEquals(1, delta.getChanges().get(0).getIndex());
+        assertFalse(delta.getChanges().get(0).isSelected());
     }
 
     @Test
@@ -780,10 +1117,12 @@ public class GameServiceTest {
 
             // Act
             gameService.selectWord(1L, dto);
+            gameStateStore.flushDirty();
 
             // Assert
-            assertTrue(card.isSelected());
-            verify(gameRepository).save(game);
+            assertTrue(gameService.getBoard(1L).get(0).isSelected());
+            verify(gameRepository, never()).applyChanges(anyLong(), anyLong(), any(), any(), anyMap(), anyMap()); // selection is not persisted
+            verify(gameRepository, never()).save(any());
         }
 
         @Test
@@ -871,7 +1210,7 @@ public class GameServiceTest {
     @Nested
     class TimerTests {
         @Test
-        void startTimedGame_turnSwitchesAfterTimer() throws InterruptedException {
+        void startTimedGame_turnSwitchesAfterTimer() {
             Lobby lobby = new Lobby();
             lobby.setId(999L);
             lobby.setTurnDuration(1);
@@ -881,12 +1220,12 @@ public class GameServiceTest {
 
             when(lobbyRepository.findById(999L)).thenReturn(Optional.of(lobby));
 
-            when(wordGenerationService.getWordsFromApi(GameLanguage.ENGLISH)).thenReturn(List.of(
+            when(wordGenerationService.getWordsFromApiAsync(GameLanguage.ENGLISH, QuotaGovernor.Priority.INTERACTIVE)).thenReturn(CompletableFuture.completedFuture(List.of(
                     "apple", "banana", "cherry", "dog", "cat", "tree", "house", "river",
                     "car", "mountain", "bird", "school", "computer", "book", "phone",
                     "chair", "sun", "moon", "star", "water", "pen", "desk", "cloud",
                     "road", "train"
-            ));
+            )));
 
             Game[] gameHolder = new Game[1];
             when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
@@ -900,13 +1239,65 @@ public class GameServiceTest {
             Game game = gameService.startOrGetGame(999L, TeamColor.RED, GameMode.TIMED);
 
             assertEquals(TeamColor.RED, game.getTeamTurn());
+            assertNotNull(game.getTurnDeadline());
 
-            Thread.sleep(1500); // warte auf Timer
+            verify(websocketService, timeout(5000)).sendMessage(eq("/topic/game/999/guess"), any(makeGuessDTO.class)); // warte auf Timer
 
             Game updatedGame = gameService.getGameById(999L);
             assertEquals(TeamColor.BLUE, updatedGame.getTeamTurn()); // Turn sollte gewechselt haben
         }
 
+        @Test
+        void recoverTurnTimers_overdueTurn_endsTurnRightAway() {
+            game.setGameMode(GameMode.TIMED);
+            game.setStatus("playing");
+            game.setTeamTurn(TeamColor.RED);
+            game.setTurnDeadline(Instant.now().minusSeconds(30));
+            when(gameRepository.findRunningTimedGames()).thenReturn(List.of(game));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            gameService.recoverTurnTimers();
+
+            assertEquals(TeamColor.BLUE, game.getTeamTurn());
+            assertTrue(game.getTurnDeadline().isAfter(Instant.now()));
+            verify(websocketService).sendMessage(eq("/topic/game/1/guess"), any(makeGuessDTO.class));
+        }
+
+        @Test
+        void recoverTurnTimers_overdueTurnWithSelection_publishesClearedSelection() {
+            game.setGameMode(GameMode.TIMED);
+            game.setStatus("playing");
+            game.setTeamTurn(TeamColor.RED);
+            game.setTurnDeadline(Instant.now().minusSeconds(30));
+            game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED))));
+            game.getKernel().setSelected(0, true);
+            game.getKernel().markPublished();
+            when(gameRepository.findRunningTimedGames()).thenReturn(List.of(game));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            gameService.recoverTurnTimers();
+
+            verify(websocketService).sendMessage(eq("/topic/game/1/board"), argThat(payload ->
+                payload instanceof BoardDeltaDTO && !((BoardDeltaDTO) payload).getChanges().get(0).isSelected()));
+        }
+
+        @Test
+        void recoverTurnTimers_pendingTurn_endsAtStoredDeadline() {
+            game.setGameMode(GameMode.TIMED);
+            game.setStatus("playing");
+            game.setTeamTurn(TeamColor.RED);
+            game.setTurnDeadline(Instant.now().plusMillis(300));
+            when(gameRepository.findRunningTimedGames()).thenReturn(List.of(game));
+            when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+            gameService.recoverTurnTimers();
+            assertEquals(TeamColor.RED, game.getTeamTurn());
+
+            verify(websocketService, timeout(5000)).sendMessage(eq("/topic/game/1/guess"), any(makeGuessDTO.class));
+
+            assertEquals(TeamColor.BLUE, gameService.getGameById(1L).getTeamTurn());
+        }
+
 
     }
 }
@@ -0,0 +1,242 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.CardColor;
+import ch.uzh.ifi.hase.soprafs24.constant.TeamColor;
+import ch.uzh.ifi.hase.soprafs24.entity.Card;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GameStateStoreTest {
+
+    private GameRepository gameRepository;
+    private GameEventLog gameEventLog;
+    private GameStateStore gameStateStore;
+    private Game game;
+    private long storedVersion;
+    private TeamColor storedTurn = TeamColor.RED;
+    private String storedStatus = "playing";
+
+    @BeforeEach
+    public void setup() {
+        gameRepository = mock(GameRepository.class);
+        gameEventLog = mock(GameEventLog.class);
+        gameStateStore = new GameStateStore(gameRepository, new GameCommandMailbox(), gameEventLog);
+
+        game = new Game();
+        game.setId(1L);
+        game.setInstanceId("game-1");
+        game.setBoard(new ArrayList<>(List.of(new Card("APPLE", CardColor.RED), new Card("BANANA", CardColor.BLUE))));
+        game.clearPendingChanges(); // as if loaded from the database
+        when(gameRepository.applyChanges(anyLong(), anyLong(), any(), any(), anyMap(), anyMap())).thenReturn(true);
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void find_loadsOnceAndServesFromMemory() {
+        Game first = gameStateStore.find(1L).orElseThrow();
+        Game second = gameStateStore.find(1L).orElseThrow();
+
+        assertSame(first, second);
+        verify(gameRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void find_movesMissingInDocument_replayedAndWritten() {
+        when(gameEventLog.replayPending(game)).thenAnswer(invocation -> {
+            game.setTeamTurn(TeamColor.BLUE);
+            return true;
+        });
+
+        gameStateStore.find(1L);
+        gameStateStore.flushDirty();
+
+        verify(gameRepository).applyChanges(1L, 0L, null, null, Map.of("teamTurn", TeamColor.BLUE), Map.of());
+    }
+
+    @Test
+    public void find_unknownGame_returnsEmpty() {
+        when(gameRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(gameStateStore.find(2L).isEmpty());
+    }
+
+    @Test
+    public void markDirty_multipleChanges_coalescedIntoOneWrite() {
+        Game cached = gameStateStore.find(1L).orElseThrow();
+
+        cached.setTeamTurn(TeamColor.RED);
+        gameStateStore.markDirty(cached);
+        cached.setTeamTurn(TeamColor.BLUE);
+        gameStateStore.markDirty(cached);
+        gameStateStore.markDirty(cached);
+        gameStateStore.flushDirty();
+        gameStateStore.flushDirty();
+
+        verify(gameRepository, times(1)).applyChanges(1L, 0L, null, null, Map.of("teamTurn", TeamColor.BLUE), Map.of());
+        verify(gameRepository, never()).save(cached);
+        assertEquals(1L, cached.getVersion());
+    }
+
+    @Test
+    public void flush_guess_writesOnlyChangedCardFields() {
+        Game cached = gameStateStore.find(1L).orElseThrow();
+
+        cached.getKernel().markGuessed(1);
+        cached.addGuessedInHint();
+        gameStateStore.markDirty(cached);
+        gameStateStore.flush(1L);
+
+        verify(gameRepository).applyChanges(1L, 0L, null, null, Map.of("board.1.guessed", true), Map.of("guessedInHint", 1));
+    }
+
+    @Test
+    public void flush_guessOnSeededBoard_writesGuessedMaskOnly() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            words.add("WORD" + i);
+        }
+        Game cached = gameStateStore.find(1L).orElseThrow();
+        cached.setStartingTeam(TeamColor.RED);
+        cached.setWords(words);
+        cached.setBoardSeed(7L);
+        cached.clearPendingChanges();
+
+        cached.getKernel().markGuessed(4);
+        cached.getKernel().markGuessed(6);
+        gameStateStore.markDirty(cached);
+        gameStateStore.flush(1L);
+
+        verify(gameRepository).applyChanges(1L, 0L, null, null, Map.of("guessedMask", 0b1010000), Map.of());
+    }
+
+    @Test
+    public void flush_guessAfterHint_counterIncremented() {
+        Game cached = gameStateStore.find(1L).orElseThrow();
+        cached.setCurrentHint("fruit", 2);
+        gameStateStore.flush(1L);
+
+        cached.addGuessedInHint();
+        cached.addGuessedInHint();
+        gameStateStore.markDirty(cached);
+        gameStateStore.flush(1L);
+
+        verify(gameRepository).applyChanges(1L, 1L, null, null, Map.of(), Map.of("guessedInHint", 2));
+    }
+
+    @Test
+    public void flush_turnChanged_guardedByStoredTurnAndStatus() {
+        Game cached = gameStateStore.find(1L).orElseThrow();
+        cached.setTeamTurn(TeamColor.RED);
+        cached.setStatus("playing");
+        gameStateStore.flush(1L);
+
+        cached.setTeamTurn(TeamColor.BLUE);
+        cached.setTeamTurn(TeamColor.RED);
+        cached.setStatus("finished");
+        gameStateStore.markDirty(cached);
+        gameStateStore.flush(1L);
+
+        verify(gameRepository).applyChanges(1L, 1L, TeamColor.RED, "playing",
+            Map.of("teamTurn", TeamColor.RED, "status", "finished"), Map.of());
+    }
+
+    @Test
+    public void flush_twoWriters_staleWriteRejected() {
+        // the stored document, changed only by writes that match its version, turn and status
+        when(gameRepository.findById(1L)).thenAnswer(invocation -> Optional.of(storedGame()));
+        when(gameRepository.applyChanges(eq(1L), anyLong(), any(), any(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            if ((long) invocation.getArgument(1) != storedVersion || invocation.getArgument(2) != storedTurn
+                    || !storedStatus.equals(invocation.getArgument(3))) {
+                return false;
+            }
+            Map<String, Object> changes = invocation.getArgument(4);
+            storedTurn = (TeamColor) changes.getOrDefault("teamTurn", storedTurn);
+            storedStatus = (String) changes.getOrDefault("status", storedStatus);
+            storedVersion++;
+            return true;
+        });
+        GameStateStore otherServer = new GameStateStore(gameRepository, new GameCommandMailbox(), gameEventLog,
+            mock(ScheduledExecutorService.class));
+        Game current = otherServer.find(1L).orElseThrow();
+        Game stale = gameStateStore.find(1L).orElseThrow();
+
+        current.setTeamTurn(TeamColor.BLUE);
+        otherServer.markDirty(current);
+        otherServer.flush(1L);
+        // a move of red that was made on the outdated copy
+        stale.setStatus("finished");
+        gameStateStore.markDirty(stale);
+        gameStateStore.flush(1L);
+
+        assertEquals("playing", storedStatus);
+        assertEquals(TeamColor.BLUE, storedTurn);
+        Game reloaded = gameStateStore.find(1L).orElseThrow();
+        assertNotSame(stale, reloaded);
+        assertEquals(TeamColor.BLUE, reloaded.getTeamTurn());
+        assertEquals(1L, reloaded.getVersion());
+    }
+
+    @Test
+    public void flush_gameDeletedMeanwhile_dropsCachedGame() {
+        Game cached = gameStateStore.find(1L).orElseThrow();
+        when(gameRepository.applyChanges(eq(1L), anyLong(), any(), any(), anyMap(), anyMap())).thenReturn(false);
+        when(gameRepository.findById(1L)).thenReturn(Optional.empty());
+
+        cached.setStatus("finished");
+        gameStateStore.markDirty(cached);
+        gameStateStore.flushDirty();
+
+        assertTrue(gameStateStore.find(1L).isEmpty());
+    }
+
+    @Test
+    public void create_writesSynchronouslyAndCaches() {
+        Game created = new Game();
+        created.setId(5L);
+
+        gameStateStore.create(created);
+
+        verify(gameRepository).save(created);
+        assertSame(created, gameStateStore.find(5L).orElseThrow());
+        verify(gameRepository, never()).findById(5L);
+    }
+
+    @Test
+    public void delete_removesFromMemoryAndDatabase() {
+        gameStateStore.find(1L);
+
+        gameStateStore.delete(1L);
+
+        verify(gameRepository).deleteById(1L);
+        verify(gameEventLog).remove("game-1");
+        gameStateStore.find(1L);
+        verify(gameRepository, times(2)).findById(1L);
+    }
+
+    private Game storedGame() {
+        Game loaded = new Game();
+        loaded.setId(1L);
+        loaded.setTeamTurn(storedTurn);
+        loaded.setStatus(storedStatus);
+        loaded.setVersion(storedVersion);
+        loaded.clearPendingChanges();
+        return loaded;
+    }
+}
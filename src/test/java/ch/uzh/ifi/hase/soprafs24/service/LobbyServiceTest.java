@@ -12,6 +12,7 @@ import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +31,7 @@ public class LobbyServiceTest {
     private WebsocketService websocketService;
     private TeamRepository teamRepository;
     private UserRepository userRepository;
+    private BoardPreparer boardPreparer;
 
     @BeforeEach
     public void setup() {
@@ -38,8 +40,9 @@ public class LobbyServiceTest {
         websocketService = Mockito.mock(WebsocketService.class);
         teamRepository = Mockito.mock(TeamRepository.class);
         userRepository = Mockito.mock(UserRepository.class);
+        boardPreparer = Mockito.mock(BoardPreparer.class);
 
-        lobbyService = new LobbyService(lobbyRepository, playerRepository, teamRepository, websocketService, userRepository);
+        lobbyService = new LobbyService(lobbyRepository, playerRepository, teamRepository, websocketService, userRepository, boardPreparer);
 
         when(lobbyRepository.save(any(Lobby.class)))
                 .thenAnswer(invocation -> {
@@ -529,7 +532,83 @@ public class LobbyServiceTest {
             verify(lobbyRepository, times(2)).save(any(Lobby.class));
             verify(teamRepository, times(2)).save(any(Team.class));
         }
+
+        @Test
+        public void createLobby_setsExpiryOnLobbyAndTeams() {
+            Lobby result = lobbyService.createLobby("Test Lobby", GameMode.CLASSIC, false);
+
+            assertEquals(result.getCreatedAt().plus(LobbyService.LOBBY_TIMEOUT), result.getExpiresAt());
+            assertEquals(result.getExpiresAt(), result.getRedTeam().getExpiresAt());
+            assertEquals(result.getExpiresAt(), result.getBlueTeam().getExpiresAt());
+        }
+
+        @Test
+        public void scheduleLobbyTimeout_countdownRunning_notExtended() {
+            Lobby lobby = new Lobby();
+            lobby.setId(1L);
+            Instant expiresAt = Instant.now().plusSeconds(60);
+            lobby.setExpiresAt(expiresAt);
+
+            lobbyService.scheduleLobbyTimeout(lobby);
+
+            assertEquals(expiresAt, lobby.getExpiresAt());
+            verify(lobbyRepository, never()).save(any(Lobby.class));
+        }
+
+        @Test
+        public void scheduleLobbyTimeout_afterGame_restartsCountdownForLobbyTeamsAndPlayers() {
+            Lobby lobby = new Lobby();
+            lobby.setId(1L);
+            Team redTeam = new Team();
+            Team blueTeam = new Team();
+            lobby.setRedTeam(redTeam);
+            lobby.setBlueTeam(blueTeam);
+            Player player = new Player(5L);
+            player.setTeam(redTeam);
+            lobby.setPlayers(new ArrayList<>(List.of(player)));
+            lobby.setExpiresAt(Instant.now().plus(LobbyService.STARTED_LOBBY_TIMEOUT));
+
+            lobbyService.scheduleLobbyTimeout(lobby);
+
+            assertTrue(lobby.getExpiresAt().isBefore(Instant.now().plus(LobbyService.LOBBY_TIMEOUT).plusSeconds(1)));
+            assertEquals(lobby.getExpiresAt(), redTeam.getExpiresAt());
+            assertEquals(lobby.getExpiresAt(), blueTeam.getExpiresAt());
+            assertEquals(lobby.getExpiresAt(), player.getExpiresAt());
+            verify(playerRepository).save(player);
+        }
         
+        @Test
+        public void extendStartedLobby_gameRunning_pushesExpiryOfLobbyTeamsAndPlayers() {
+            Lobby lobby = new Lobby();
+            lobby.setId(1L);
+            lobby.setGameStarted(true);
+            Team redTeam = new Team();
+            lobby.setRedTeam(redTeam);
+            Player player = new Player(5L);
+            lobby.setPlayers(new ArrayList<>(List.of(player)));
+            lobby.setExpiresAt(Instant.now().plusSeconds(60));
+            when(lobbyRepository.findById(1L)).thenReturn(Optional.of(lobby));
+
+            lobbyService.extendStartedLobby(1L);
+
+            assertTrue(lobby.getExpiresAt().isAfter(Instant.now().plus(LobbyService.STARTED_LOBBY_TIMEOUT).minusSeconds(5)));
+            assertEquals(lobby.getExpiresAt(), redTeam.getExpiresAt());
+            assertEquals(lobby.getExpiresAt(), player.getExpiresAt());
+        }
+
+        @Test
+        public void extendStartedLobby_noGameRunning_notExtended() {
+            Lobby lobby = new Lobby();
+            lobby.setId(1L);
+            lobby.setGameStarted(false);
+            when(lobbyRepository.findById(1L)).thenReturn(Optional.of(lobby));
+
+            lobbyService.extendStartedLobby(1L);
+
+            assertNull(lobby.getExpiresAt());
+            verify(lobbyRepository, never()).save(any(Lobby.class));
+        }
+
         @Test
         public void getLobbyById_notFound_throwsException() {
             // Setup
@@ -774,6 +853,7 @@ public class LobbyServiceTest {
             Lobby result = lobbyService.setTheme(1L, " space-theme ");
             assertEquals("space-theme", result.getTheme());
             verify(lobbyRepository).save(lobby);
+            verify(boardPreparer).prepare(lobby); // prepared words of the old theme are replaced
         }
 
         @Test
@@ -857,6 +937,7 @@ public class LobbyServiceTest {
             verify(teamRepository).deleteById(20L);
             verify(lobbyRepository).deleteById(99L);
             verify(websocketService).sendMessage("/topic/lobby/99/close", "CLOSED");
+            verify(boardPreparer).invalidate(99L);
         }
     }
 }
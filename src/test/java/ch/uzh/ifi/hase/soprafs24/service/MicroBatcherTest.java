@@ -0,0 +1,90 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MicroBatcherTest {
+
+    private final List<List<String>> sentBatches = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void submit_withinWindow_sentAsOneBatch() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(50, 8, this::answer, ForkJoinPool.commonPool());
+
+        CompletableFuture<String> english = batcher.submit("en");
+        CompletableFuture<String> german = batcher.submit("de");
+        CompletableFuture<String> englishAgain = batcher.submit("en");
+
+        assertSame(english, englishAgain);
+        assertEquals("EN", english.join());
+        assertEquals("DE", german.join());
+        assertEquals(List.of(List.of("en", "de")), sentBatches);
+        assertEquals(1, batcher.getBatches());
+        assertEquals(2, batcher.getBatchedKeys());
+    }
+
+    @Test
+    public void submit_batchFull_sentBeforeWindow() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(60000, 2, this::answer, ForkJoinPool.commonPool());
+
+        CompletableFuture<String> english = batcher.submit("en");
+        CompletableFuture<String> german = batcher.submit("de");
+        CompletableFuture<String> french = batcher.submit("fr");
+
+        assertEquals("EN", english.join());
+        assertEquals("DE", german.join());
+        assertFalse(french.isDone());
+        assertEquals(List.of(List.of("en", "de")), sentBatches);
+    }
+
+    @Test
+    public void submit_afterWindow_startsNewBatch() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(10, 8, this::answer, ForkJoinPool.commonPool());
+
+        batcher.submit("en").join();
+        batcher.submit("en").join();
+
+        assertEquals(2, batcher.getBatches());
+    }
+
+    @Test
+    public void submit_keyMissingFromResult_futureFails() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(10, 8,
+            keys -> CompletableFuture.completedFuture(Map.of("en", "EN")), ForkJoinPool.commonPool());
+
+        CompletableFuture<String> english = batcher.submit("en");
+        CompletableFuture<String> german = batcher.submit("de");
+
+        assertEquals("EN", english.join());
+        assertThrows(CompletionException.class, german::join);
+    }
+
+    @Test
+    public void submit_sendThrows_allFuturesFail() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(10, 8, keys -> {
+            throw new IllegalStateException("API down");
+        }, ForkJoinPool.commonPool());
+
+        CompletableFuture<String> english = batcher.submit("en");
+        CompletableFuture<String> german = batcher.submit("de");
+
+        assertThrows(CompletionException.class, english::join);
+        assertThrows(CompletionException.class, german::join);
+    }
+
+    private CompletableFuture<Map<String, String>> answer(List<String> keys) {
+        sentBatches.add(keys);
+        Map<String, String> results = new HashMap<>();
+        keys.forEach(key -> results.put(key, key.toUpperCase()));
+        return CompletableFuture.completedFuture(results);
+    }
+}
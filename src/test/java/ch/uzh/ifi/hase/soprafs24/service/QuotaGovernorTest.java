@@ -0,0 +1,125 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.service.QuotaGovernor.Priority;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuotaGovernorTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void acquire_withinBurst_grantedRightAway() {
+        QuotaGovernor governor = governor(60, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(governor.acquire(Priority.INTERACTIVE).join());
+        }
+        CompletableFuture<Boolean> fourth = governor.acquire(Priority.INTERACTIVE);
+
+        assertFalse(fourth.isDone());
+        assertEquals(1, governor.getQueued(Priority.INTERACTIVE));
+        assertEquals(3, governor.getGranted(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void drain_tokensRefilled_grantedByPriority() {
+        // one token per second
+        QuotaGovernor governor = governor(60, 2);
+        governor.acquire(Priority.INTERACTIVE);
+        governor.acquire(Priority.INTERACTIVE);
+
+        CompletableFuture<Boolean> refill = governor.acquire(Priority.REFILL);
+        CompletableFuture<Boolean> pregeneration = governor.acquire(Priority.PREGENERATION);
+        CompletableFuture<Boolean> interactive = governor.acquire(Priority.INTERACTIVE);
+
+        advance(1000);
+        governor.drain();
+        assertTrue(interactive.isDone());
+        assertFalse(pregeneration.isDone());
+
+        advance(1000);
+        governor.drain();
+        assertTrue(pregeneration.join());
+        assertFalse(refill.isDone());
+
+        // refills leave half of the burst
+        advance(2000);
+        governor.drain();
+        assertTrue(refill.join());
+    }
+
+    @Test
+    public void acquire_refillBelowReserve_waitsWhileGameStartsGoThrough() {
+        QuotaGovernor governor = governor(60, 10);
+        for (int i = 0; i < 5; i++) {
+            governor.acquire(Priority.INTERACTIVE);
+        }
+
+        CompletableFuture<Boolean> refill = governor.acquire(Priority.REFILL);
+
+        assertFalse(refill.isDone());
+        assertTrue(governor.acquire(Priority.INTERACTIVE).join());
+    }
+
+    @Test
+    public void acquire_queueFull_shed() {
+        QuotaGovernor governor = governor(60, 1);
+        governor.acquire(Priority.INTERACTIVE);
+        for (int i = 0; i < 5; i++) {
+            governor.acquire(Priority.REFILL);
+        }
+
+        assertFalse(governor.acquire(Priority.REFILL).join());
+        assertEquals(1, governor.getShed(Priority.REFILL));
+        assertEquals(5, governor.getQueued(Priority.REFILL));
+    }
+
+    @Test
+    public void drain_waitedTooLong_shed() {
+        // one token per minute
+        QuotaGovernor governor = governor(1, 1, 1000);
+        governor.acquire(Priority.INTERACTIVE);
+        CompletableFuture<Boolean> waiting = governor.acquire(Priority.INTERACTIVE);
+
+        advance(1500);
+        governor.drain();
+
+        assertFalse(waiting.join());
+        assertEquals(1, governor.getShed(Priority.INTERACTIVE));
+        assertEquals(0, governor.getQueued(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void constructor_invalidRate_throws() {
+        assertThrows(IllegalArgumentException.class, () -> governor(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> governor(60, 0));
+    }
+
+    private QuotaGovernor governor(int requestsPerMinute, int burst) {
+        return governor(requestsPerMinute, burst, 60000);
+    }
+
+    private QuotaGovernor governor(int requestsPerMinute, int burst, long maxWaitMs) {
+        return new QuotaGovernor("test", requestsPerMinute, burst, maxWaitMs, now::get, scheduler);
+    }
+
+    private void advance(long ms) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+}
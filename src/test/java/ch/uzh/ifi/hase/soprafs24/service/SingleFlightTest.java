@@ -0,0 +1,79 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    private final AtomicInteger started = new AtomicInteger();
+
+    @Test
+    public void run_sameKeyWhileRunning_sharesCall() {
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+
+        CompletableFuture<Integer> first = singleFlight.run("en", () -> start(upstream));
+        CompletableFuture<Integer> second = singleFlight.run("en", () -> start(new CompletableFuture<>()));
+        upstream.complete(42);
+
+        assertEquals(42, first.join());
+        assertEquals(42, second.join());
+        assertEquals(1, started.get());
+        assertEquals(1, singleFlight.getCalls());
+        assertEquals(1, singleFlight.getSharedCalls());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void run_differentKeys_separateCalls() {
+        CompletableFuture<Integer> english = singleFlight.run("en", () -> start(new CompletableFuture<>()));
+        CompletableFuture<Integer> german = singleFlight.run("de", () -> start(new CompletableFuture<>()));
+
+        assertNotSame(english, german);
+        assertEquals(2, started.get());
+        assertEquals(2, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void run_afterCompletion_startsNewCall() {
+        singleFlight.run("en", () -> start(CompletableFuture.completedFuture(1))).join();
+
+        int result = singleFlight.run("en", () -> start(CompletableFuture.completedFuture(2))).join();
+
+        assertEquals(2, result);
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    public void run_callFails_allCallersFailAndKeyReleased() {
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        CompletableFuture<Integer> first = singleFlight.run("en", () -> start(upstream));
+        CompletableFuture<Integer> second = singleFlight.run("en", () -> start(new CompletableFuture<>()));
+
+        upstream.completeExceptionally(new IllegalStateException("API down"));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void run_callThrows_futureFails() {
+        CompletableFuture<Integer> result = singleFlight.run("en", () -> {
+            throw new IllegalStateException("invalid request");
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    private CompletableFuture<Integer> start(CompletableFuture<Integer> upstream) {
+        started.incrementAndGet();
+        return upstream;
+    }
+}
@@ -0,0 +1,81 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TurnTimerServiceTest {
+
+    private TurnTimerService timers;
+
+    @BeforeEach
+    public void setup() {
+        timers = new TurnTimerService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        timers.shutdown();
+    }
+
+    @Test
+    public void schedule_firesAfterDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        TurnTimerService.Timeout timeout = timers.schedule(t -> fired.countDown(), 300, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 300);
+        assertTrue(timeout.isExpired());
+        assertEquals(0, timers.getPendingTimers());
+        assertEquals(1, timers.getFiredTimers());
+    }
+
+    @Test
+    public void cancel_timerNeverFires() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+
+        TurnTimerService.Timeout timeout = timers.schedule(t -> fired.incrementAndGet(), 200, TimeUnit.MILLISECONDS);
+        assertEquals(1, timers.getPendingTimers());
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        // timers fire in deadline order, once a later timer fired the cancelled one is past its deadline
+        CountDownLatch later = new CountDownLatch(1);
+        timers.schedule(t -> later.countDown(), 400, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, timers.getPendingTimers());
+    }
+
+    @Test
+    public void schedule_manyTimers_allFireInDeadlineOrder() throws InterruptedException {
+        int count = 1000;
+        CountDownLatch fired = new CountDownLatch(count);
+        AtomicInteger outOfOrder = new AtomicInteger();
+        AtomicInteger lastBucket = new AtomicInteger(-1);
+
+        for (int i = 0; i < count; i++) {
+            int bucket = i % 5;
+            timers.schedule(t -> {
+                if (bucket < lastBucket.getAndAccumulate(bucket, Math::max)) {
+                    outOfOrder.incrementAndGet();
+                }
+                fired.countDown();
+            }, 100 + bucket * 200L, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(fired.await(3, TimeUnit.SECONDS));
+        assertEquals(0, outOfOrder.get());
+        assertEquals(count, timers.getFiredTimers());
+    }
+}
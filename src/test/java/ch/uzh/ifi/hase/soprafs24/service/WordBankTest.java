@@ -0,0 +1,106 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordBankTest {
+
+    private WordBank wordBank;
+
+    @BeforeEach
+    public void setup() {
+        wordBank = new WordBank();
+    }
+
+    @Test
+    public void bundledBanks_availableForAllLanguages() {
+        for (GameLanguage language : GameLanguage.values()) {
+            assertTrue(wordBank.isAvailable(language), language.name());
+            assertTrue(wordBank.size(language) >= 250, language.name());
+        }
+    }
+
+    @Test
+    public void sample_returnsDistinctValidWords() {
+        for (GameLanguage language : GameLanguage.values()) {
+            List<String> words = wordBank.sample(language, 25);
+
+            assertEquals(25, words.size());
+            assertEquals(25, new HashSet<>(words).size());
+            assertTrue(words.stream().allMatch(WordPool::isValid));
+            assertTrue(words.stream().allMatch(word -> word.equals(word.toUpperCase())));
+        }
+    }
+
+    @Test
+    public void sample_sameSeed_sameWords() {
+        List<String> first = wordBank.sample(GameLanguage.GERMAN, 25, new Random(42));
+        List<String> second = wordBank.sample(GameLanguage.GERMAN, 25, new Random(42));
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void sample_moreThanBank_returnsWholeBank() {
+        int size = wordBank.size(GameLanguage.ITALIAN);
+
+        List<String> words = wordBank.sample(GameLanguage.ITALIAN, size + 10);
+
+        assertEquals(size, words.size());
+        assertEquals(size, new HashSet<>(words).size());
+    }
+
+    @Test
+    public void sample_consecutiveBoards_noSharedWords() {
+        for (GameLanguage language : GameLanguage.values()) {
+            int boards = wordBank.size(language) / WordBank.RECENT_SHARE_DIVISOR / 25;
+            Set<String> words = new HashSet<>();
+            for (int i = 0; i < boards; i++) {
+                words.addAll(wordBank.sample(language, 25));
+            }
+
+            assertEquals(boards * 25, words.size(), language.name());
+        }
+    }
+
+    @Test
+    public void sample_afterBoards_wholeBankStillAvailable() {
+        int size = wordBank.size(GameLanguage.FRENCH);
+        wordBank.sample(GameLanguage.FRENCH, 25);
+        wordBank.sample(GameLanguage.FRENCH, 25);
+
+        List<String> words = wordBank.sample(GameLanguage.FRENCH, size);
+
+        assertEquals(size, new HashSet<>(words).size());
+    }
+
+    @Test
+    public void write_skipsCommentsBlankLinesAndDuplicates() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        WordBank.write(List.of("# comment", "Apfel", "", " APFEL ", "Brücke"), bytes);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(WordBank.MAGIC, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals(0, in.readInt());
+        assertEquals(5, in.readInt());
+        // Ü takes two bytes in UTF-8
+        assertEquals(12, in.readInt());
+        assertEquals("APFELBRÜCKE", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+}
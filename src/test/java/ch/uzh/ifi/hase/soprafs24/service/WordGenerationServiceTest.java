@@ -1,20 +1,37 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 
+import com.sun.net.httpserver.HttpServer;
+
 import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+import ch.uzh.ifi.hase.soprafs24.service.QuotaGovernor.Priority;
 
 import ch.uzh.ifi.hase.soprafs24.api.apiToken;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class WordGenerationServiceTest {
 
     private WordGenerationService wordGenerationService;
+    private HttpServer stubServer;
+    private final List<String> stubPrompts = new CopyOnWriteArrayList<>();
 
     @BeforeEach
     public void setup() {
@@ -24,6 +41,13 @@ public class WordGenerationServiceTest {
         wordGenerationService.setApiKey("testApiKey");
     }
 
+    @AfterEach
+    public void tearDown() {
+        if (stubServer != null) {
+            stubServer.stop(0);
+        }
+    }
+
     @Test
     public void getWordsFromApi_withoutTheme_returnsWordsOrEmpty() {
         List<String> words = wordGenerationService.getWordsFromApi(GameLanguage.GERMAN);
@@ -49,4 +73,231 @@ public class WordGenerationServiceTest {
         List<String> words = wordGenerationService.getWordsFromApi(GameLanguage.ENGLISH);
         assertNotNull(words);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getWordsFromApiAsync_stubServer_returnsWords() throws IOException {
+        startStubServer(0);
+        wordGenerationService.setEndpoint("http://localhost:" + stubServer.getAddress().getPort() + "/generate");
+
+        CompletableFuture<List<String>> words = wordGenerationService.getWordsFromApiAsync("space", GameLanguage.ENGLISH);
+
+        assertEquals(25, words.join().size());
+        assertEquals(25, new HashSet<>(words.join()).size());
+        assertTrue(words.join().stream().allMatch(word -> word.startsWith("WORD")));
+    }
+
+    @Test
+    public void getWordsFromApiAsync_concurrentCallers_shareOneRequest() throws IOException {
+        startStubServer(300);
+        wordGenerationService.setEndpoint("http://localhost:" + stubServer.getAddress().getPort() + "/generate");
+
+        CompletableFuture<List<String>> first = wordGenerationService.getWordsFromApiAsync(" Space ", GameLanguage.ENGLISH);
+        CompletableFuture<List<String>> second = wordGenerationService.getWordsFromApiAsync("space", GameLanguage.ENGLISH);
+
+        assertEquals(25, first.join().size());
+        assertEquals(25, second.join().size());
+        // the answer is split, the boards do not overlap
+        Set<String> both = new HashSet<>(first.join());
+        both.addAll(second.join());
+        assertEquals(50, both.size());
+        assertEquals(1, wordGenerationService.getInFlight(Priority.INTERACTIVE).getCalls());
+        assertEquals(1, wordGenerationService.getInFlight(Priority.INTERACTIVE).getSharedCalls());
+    }
+
+    @Test
+    public void getWordsFromApiAsync_slowServer_timesOutWithEmptyList() throws IOException {
+        wordGenerationService = new WordGenerationService(WordPool.DEFAULT_LOW_WATERMARK, WordPool.DEFAULT_HIGH_WATERMARK, 200);
+        startStubServer(3000);
+        wordGenerationService.setEndpoint("http://localhost:" + stubServer.getAddress().getPort() + "/generate");
+
+        long start = System.currentTimeMillis();
+        List<String> words = wordGenerationService.getWordsFromApiAsync("space", GameLanguage.ENGLISH).join();
+
+        assertTrue(words.isEmpty());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    @Test
+    public void hedged_firstRequestSlow_secondRequestWins() {
+        CompletableFuture<List<String>> slow = new CompletableFuture<>();
+        List<CompletableFuture<List<String>>> answers = new ArrayList<>(List.of(slow, CompletableFuture.completedFuture(List.of("HEDGE"))));
+
+        List<String> words = wordGenerationService.hedged(() -> answers.remove(0), Runnable::run).join();
+
+        assertEquals(List.of("HEDGE"), words);
+        assertEquals(1, wordGenerationService.getHedgedRequests());
+        assertEquals(1, wordGenerationService.getHedgeWins());
+    }
+
+    @Test
+    public void hedged_firstRequestFast_noHedge() {
+        List<Runnable> hedgeTimer = new ArrayList<>();
+        List<String> words = wordGenerationService.hedged(() -> CompletableFuture.completedFuture(List.of("FIRST")), hedgeTimer::add).join();
+        hedgeTimer.forEach(Runnable::run);
+
+        assertEquals(List.of("FIRST"), words);
+        assertEquals(0, wordGenerationService.getHedgedRequests());
+    }
+
+    @Test
+    public void hedged_allRequestsFail_emptyList() {
+        CompletableFuture<List<String>> slowFailure = new CompletableFuture<>();
+        List<CompletableFuture<List<String>>> answers = new ArrayList<>(List.of(slowFailure, CompletableFuture.completedFuture(List.of())));
+        List<Runnable> hedgeTimer = new ArrayList<>();
+
+        CompletableFuture<List<String>> words = wordGenerationService.hedged(() -> answers.remove(0), hedgeTimer::add);
+        hedgeTimer.forEach(Runnable::run);
+        // the hedge failed, the first request is still running
+        assertEquals(1, wordGenerationService.getHedgedRequests());
+        assertFalse(words.isDone());
+        slowFailure.complete(List.of());
+
+        assertTrue(words.join().isEmpty());
+        assertEquals(0, wordGenerationService.getHedgeWins());
+    }
+
+    @Test
+    public void getWordsFromApiAsync_circuitOpen_failsFast() throws IOException {
+        startStubServer(3000);
+        wordGenerationService.setEndpoint("http://localhost:" + stubServer.getAddress().getPort() + "/generate");
+        CircuitBreaker breaker = wordGenerationService.getCircuitBreaker();
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.tryAcquire().onFailure(0);
+        }
+
+        long start = System.currentTimeMillis();
+        List<String> words = wordGenerationService.getWordsFromApiAsync("space", GameLanguage.ENGLISH).join();
+
+        assertTrue(words.isEmpty());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // refused requests do not use up the quota
+        assertEquals(0, wordGenerationService.getQuotaGovernor().getGranted(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void getWordsFromApiAsync_differentThemes_shareOnePrompt() throws IOException {
+        // the word pool also refills both themes in the background, with prompts of their own
+        startStubServer(0, prompt -> prompt.contains("one list for each")
+            ? "{\\\"1\\\": " + wordArray("one") + ", \\\"2\\\": " + wordArray("two") + "}"
+            : wordArray(prompt.contains("'meer'") ? "two" : "one"));
+        wordGenerationService.setEndpoint("http://localhost:" + stubServer.getAddress().getPort() + "/generate");
+
+        CompletableFuture<List<String>> space = wordGenerationService.getWordsFromApiAsync("space", GameLanguage.ENGLISH);
+        CompletableFuture<List<String>> sea = wordGenerationService.getWordsFromApiAsync("Meer", GameLanguage.GERMAN);
+
+        assertEquals(25, space.join().size());
+        assertEquals(25, sea.join().size());
+        assertTrue(space.join().stream().allMatch(word -> word.startsWith("ONE")));
+        assertTrue(sea.join().stream().allMatch(word -> word.startsWith("TWO")));
+        assertEquals(1, stubPrompts.stream().filter(prompt -> prompt.contains("one list for each")).count());
+        assertEquals(1, wordGenerationService.getBatcher(Priority.INTERACTIVE).getBatches());
+        assertEquals(2, wordGenerationService.getBatcher(Priority.INTERACTIVE).getBatchedKeys());
+    }
+
+    @Test
+    public void getWordsFromApiAsync_keyMissingFromBatch_requestedSeparately() throws IOException {
+        startStubServer(0, prompt -> prompt.contains("one list for each")
+            ? "{\\\"1\\\": " + wordArray("one") + "}"
+            : wordArray(prompt.contains("'sea'") ? "two" : "one"));
+        wordGenerationService.setEndpoint("http://localhost:" + stubServer.getAddress().getPort() + "/generate");
+
+        CompletableFuture<List<String>> space = wordGenerationService.getWordsFromApiAsync("space", GameLanguage.ENGLISH);
+        CompletableFuture<List<String>> sea = wordGenerationService.getWordsFromApiAsync("sea", GameLanguage.ENGLISH);
+
+        assertTrue(space.join().stream().allMatch(word -> word.startsWith("ONE")));
+        assertTrue(sea.join().stream().allMatch(word -> word.startsWith("TWO")));
+        assertEquals(25, sea.join().size());
+        // refills ask for more words than a single request
+        assertTrue(stubPrompts.stream().anyMatch(prompt -> prompt.contains("list of " + WordGenerationService.SHARED_REQUEST_SIZE + " ")
+            && prompt.contains("'sea'")));
+    }
+
+    @Test
+    public void batchPrompt_numbersKeysWithThemes() {
+        String prompt = WordGenerationService.batchPrompt(
+            List.of(WordPool.Key.of(GameLanguage.ENGLISH, "Space"), WordPool.Key.of(GameLanguage.GERMAN, null)), 50);
+
+        assertTrue(prompt.contains("1. ENGLISH nouns that all clearly relate to the theme: 'space'\n"));
+        assertTrue(prompt.contains("2. GERMAN nouns\n"));
+    }
+
+    @Test
+    public void parseBatch_fencedObject_wordsPerKey() {
+        String body = "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": "
+            + "\"```json\\n{\\\"2\\\": [\\\"Wave\\\", \\\"wave\\\", \\\"Ship\\\"], \\\"note\\\": \\\"x\\\", "
+            + "\\\"1\\\": [\\\"Star\\\", \\\"Moon\\\", \\\"Comet\\\"]}\\n```\"}]}}]}";
+
+        Map<Integer, List<String>> lists = WordGenerationService.parseBatch(body, 2);
+
+        assertEquals(List.of("STAR", "MOON"), lists.get(1));
+        assertEquals(List.of("WAVE", "SHIP"), lists.get(2));
+        assertEquals(2, lists.size());
+    }
+
+    @Test
+    public void parseWords_fencedArray_distinctUppercaseWords() {
+        String body = "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": "
+            + "\"```json\\n[\\\"Apple\\\", \\\" tree \\\", \\\"APPLE\\\", 3, \\\"Moon\\\"]\\n```\"}], \"role\": \"model\"}, "
+            + "\"finishReason\": \"STOP\"}], \"usageMetadata\": {\"totalTokenCount\": 42}}";
+
+        assertEquals(List.of("APPLE", "TREE", "MOON"), WordGenerationService.parseWords(body, 25));
+    }
+
+    @Test
+    public void parseWords_fieldsInOtherOrder_plainArray() {
+        String body = "{\"modelVersion\": \"x\", \"candidates\": [{\"index\": 0, \"content\": {\"role\": \"model\", "
+            + "\"parts\": [{\"text\": \"[\\\"a\\\", \\\"b\\\", \\\"c\\\"]\"}]}}, {\"content\": {}}]}";
+
+        assertEquals(List.of("A", "B"), WordGenerationService.parseWords(body, 2));
+    }
+
+    @Test
+    public void parseWords_noText_throws() {
+        assertThrows(IllegalStateException.class,
+            () -> WordGenerationService.parseWords("{\"error\": {\"code\": 429}}", 25));
+        assertThrows(IllegalStateException.class,
+            () -> WordGenerationService.parseWords("{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"sorry\"}]}}]}", 25));
+    }
+
+    /**
+     * Answers like Gemini with 50 words after the delay.
+     */
+    private void startStubServer(long delayMs) throws IOException {
+        startStubServer(delayMs, prompt -> wordArray("word"));
+    }
+
+    /**
+     * Answers like Gemini after the delay, the text of the answer (JSON escaped) depends on the request body.
+     */
+    private void startStubServer(long delayMs, Function<String, String> answer) throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.createContext("/generate", exchange -> {
+            String prompt = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            stubPrompts.add(prompt);
+            String text = "```json\\n" + answer.apply(prompt) + "\\n```";
+            byte[] body = ("{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"" + text + "\"}]}}]}")
+                .getBytes(StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stubServer.start();
+    }
+
+    private static String wordArray(String prefix) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < WordGenerationService.SHARED_REQUEST_SIZE; i++) {
+            // letters only, the word pool rejects digits
+            words.add("\\\"" + prefix + (char) ('a' + i % 26) + (char) ('a' + i / 26) + "\\\"");
+        }
+        return "[" + String.join(", ", words) + "]";
+    }
+}
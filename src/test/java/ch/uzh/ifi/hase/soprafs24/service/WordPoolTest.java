@@ -0,0 +1,194 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameLanguage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordPoolTest {
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private final List<String> requestedThemes = new CopyOnWriteArrayList<>();
+    private WordPool wordPool;
+
+    @BeforeEach
+    public void setup() {
+        // every request returns new words
+        wordPool = new WordPool((theme, language, count) -> {
+            requestedThemes.add(String.valueOf(theme));
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                words.add(wordFor(counter.getAndIncrement()));
+            }
+            return words;
+        }, 30, 60);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        wordPool.shutdown();
+    }
+
+    @Test
+    public void draw_emptyReserve_missThenHitAfterRefill() throws InterruptedException {
+        assertTrue(wordPool.draw(GameLanguage.ENGLISH, null, 25).isEmpty());
+        awaitReserve(GameLanguage.ENGLISH, null, 60);
+
+        Optional<List<String>> words = wordPool.draw(GameLanguage.ENGLISH, null, 25);
+
+        assertTrue(words.isPresent());
+        assertEquals(25, words.get().size());
+        assertEquals(25, new HashSet<>(words.get()).size());
+        assertEquals(1, wordPool.getHits());
+        assertEquals(1, wordPool.getMisses());
+        assertEquals(0.5, wordPool.getHitRate());
+        awaitRefills(1);
+    }
+
+    @Test
+    public void draw_belowLowWatermark_refillsInBackground() throws InterruptedException {
+        wordPool.draw(GameLanguage.GERMAN, null, 25);
+        awaitReserve(GameLanguage.GERMAN, null, 60);
+
+        // 60 - 25 = 35 words left, still above the low watermark
+        wordPool.draw(GameLanguage.GERMAN, null, 25);
+        assertEquals(35, wordPool.getReserveSize(GameLanguage.GERMAN, null));
+
+        // 10 words left, below the low watermark
+        wordPool.draw(GameLanguage.GERMAN, null, 25);
+        awaitReserve(GameLanguage.GERMAN, null, 60);
+    }
+
+    @Test
+    public void draw_themesNormalized_shareReserve() throws InterruptedException {
+        wordPool.draw(GameLanguage.ENGLISH, " Animals ", 25);
+        awaitReserve(GameLanguage.ENGLISH, "animals", 60);
+
+        assertTrue(wordPool.draw(GameLanguage.ENGLISH, "ANIMALS", 25).isPresent());
+        assertEquals(0, wordPool.getReserveSize(GameLanguage.FRENCH, "animals"));
+        assertTrue(requestedThemes.stream().allMatch("animals"::equals));
+    }
+
+    @Test
+    public void draw_defaultTheme_usesWordsWithoutTheme() throws InterruptedException {
+        wordPool.draw(GameLanguage.ENGLISH, "default", 25);
+        awaitReserve(GameLanguage.ENGLISH, null, 60);
+
+        assertTrue(requestedThemes.stream().allMatch("null"::equals));
+    }
+
+    @Test
+    public void refill_invalidAndDuplicateWords_filtered() throws InterruptedException {
+        wordPool.shutdown();
+        wordPool = new WordPool((theme, language, count) ->
+            List.of("apple", "APPLE", " Apple ", "two words", "", "1234", "{\"json\"}", "ÉCOLE", "rock'n'roll"), 30, 60);
+
+        wordPool.draw(GameLanguage.FRENCH, null, 25);
+        awaitReserve(GameLanguage.FRENCH, null, 3);
+        // the second request adds nothing new, the refill stops instead of retrying forever
+        awaitRefills(1);
+
+        assertEquals(3, wordPool.getReserveSize(GameLanguage.FRENCH, null));
+        List<String> words = wordPool.draw(GameLanguage.FRENCH, null, 3).orElseThrow();
+        assertEquals(List.of("APPLE", "ÉCOLE", "ROCK'N'ROLL"), words);
+    }
+
+    @Test
+    public void refill_sourceFails_missRecorded() throws InterruptedException {
+        wordPool.shutdown();
+        wordPool = new WordPool((theme, language, count) -> {
+            throw new IllegalStateException("API down");
+        }, 30, 60);
+
+        assertTrue(wordPool.draw(GameLanguage.ITALIAN, null, 25).isEmpty());
+        awaitRefills(1);
+
+        assertEquals(1, wordPool.getRefills());
+        assertEquals(0, wordPool.getReserveSize(GameLanguage.ITALIAN, null));
+        assertEquals(0.0, wordPool.getHitRate());
+    }
+
+    @Test
+    public void refill_recentlyTakenWords_notAddedAgain() throws InterruptedException {
+        wordPool.shutdown();
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            batch.add(wordFor(i));
+        }
+        // the source keeps answering with the same batch
+        wordPool = new WordPool((theme, language, count) -> batch, 30, 60);
+
+        wordPool.draw(GameLanguage.ENGLISH, null, 25);
+        awaitReserve(GameLanguage.ENGLISH, null, 60);
+        List<String> first = wordPool.draw(GameLanguage.ENGLISH, null, 25).orElseThrow();
+        List<String> second = wordPool.draw(GameLanguage.ENGLISH, null, 25).orElseThrow();
+        // the refill below the low watermark finds nothing new
+        awaitRefills(2);
+
+        assertEquals(10, wordPool.getReserveSize(GameLanguage.ENGLISH, null));
+        Set<String> taken = new HashSet<>(first);
+        taken.addAll(second);
+        assertEquals(50, taken.size());
+    }
+
+    @Test
+    public void offer_wordsTakenAsDisjointBoards() {
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(wordFor(i));
+        }
+        batch.add("not valid!");
+
+        wordPool.offer(GameLanguage.ITALIAN, "Sea", batch);
+
+        assertEquals(50, wordPool.getReserveSize(GameLanguage.ITALIAN, "sea"));
+        List<String> first = wordPool.take(GameLanguage.ITALIAN, "sea", 25).orElseThrow();
+        List<String> second = wordPool.take(GameLanguage.ITALIAN, "sea", 25).orElseThrow();
+        assertTrue(wordPool.take(GameLanguage.ITALIAN, "sea", 25).isEmpty());
+        assertTrue(first.stream().noneMatch(second::contains));
+        assertEquals(0, wordPool.getHits() + wordPool.getMisses());
+    }
+
+    @Test
+    public void constructor_invalidWatermarks_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new WordPool((theme, language, count) -> List.of(), 50, 50));
+        assertThrows(IllegalArgumentException.class, () -> new WordPool((theme, language, count) -> List.of(), -1, 10));
+    }
+
+    private void awaitReserve(GameLanguage language, String theme, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (wordPool.getReserveSize(language, theme) < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, wordPool.getReserveSize(language, theme));
+    }
+
+    // the refill is counted after its words are in the reserve
+    private void awaitRefills(long refills) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (wordPool.getRefills() < refills && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(refills, wordPool.getRefills());
+    }
+
+    private static String wordFor(int n) {
+        StringBuilder word = new StringBuilder("WORD");
+        do {
+            word.append((char) ('A' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return word.toString();
+    }
+}